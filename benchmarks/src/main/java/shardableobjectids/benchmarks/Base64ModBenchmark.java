@@ -0,0 +1,77 @@
+package shardableobjectids.benchmarks;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import shardableobjectids.Base64Mod;
+
+/**
+ * Generic {@link Base64Mod} paths for the id widths used in this library.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Base64ModBenchmark {
+
+    @Param({ "12", "16" })
+    public int size;
+
+    private byte[] raw;
+    private String encoded;
+    private byte[] encodedBytes;
+    private byte[] target;
+
+    @Setup
+    public void setUp() {
+        raw = new byte[size];
+        new Random(42).nextBytes(raw);
+        encoded = Base64Mod.encodeToString(raw);
+        encodedBytes = Base64Mod.encode(raw);
+        target = new byte[(int) Base64Mod.getDecodedSizeBound(encoded
+                .length()) + 4];
+    }
+
+    @Benchmark
+    public String encodeToString() {
+        return Base64Mod.encodeToString(raw);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return Base64Mod.encode(raw);
+    }
+
+    @Benchmark
+    public int encodeIntoTarget() {
+        return Base64Mod.encode(raw, 0, raw.length, target, 0);
+    }
+
+    @Benchmark
+    public byte[] decodeString() {
+        return Base64Mod.decode(encoded);
+    }
+
+    @Benchmark
+    public byte[] decodeBytes() {
+        return Base64Mod.decode(encodedBytes);
+    }
+
+}
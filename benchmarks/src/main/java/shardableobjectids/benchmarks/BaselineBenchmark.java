@@ -0,0 +1,120 @@
+package shardableobjectids.benchmarks;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.util.Base64;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reference numbers for the JDK and bson counterparts of our paths, so a
+ * regression can be told apart from a slower machine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BaselineBenchmark {
+
+    private ObjectId objectId;
+    private ObjectId otherObjectId;
+    private String objectIdHex;
+    private UUID uuid;
+    private String uuidString;
+    private byte[] raw12;
+    private byte[] raw16;
+    private String jdkBase64_12;
+    private String jdkBase64_16;
+    private Base64.Encoder encoder;
+    private Base64.Decoder decoder;
+
+    @Setup
+    public void setUp() {
+        objectId = ObjectId.get();
+        otherObjectId = ObjectId.get();
+        objectIdHex = objectId.toString();
+        uuid = UUID.randomUUID();
+        uuidString = uuid.toString();
+        Random r = new Random(42);
+        raw12 = new byte[12];
+        r.nextBytes(raw12);
+        raw16 = new byte[16];
+        r.nextBytes(raw16);
+        encoder = Base64.getUrlEncoder().withoutPadding();
+        decoder = Base64.getUrlDecoder();
+        jdkBase64_12 = encoder.encodeToString(raw12);
+        jdkBase64_16 = encoder.encodeToString(raw16);
+    }
+
+    @Benchmark
+    public ObjectId objectIdGet() {
+        return ObjectId.get();
+    }
+
+    @Benchmark
+    public String objectIdToString() {
+        return objectId.toString();
+    }
+
+    @Benchmark
+    public ObjectId objectIdParse() {
+        return new ObjectId(objectIdHex);
+    }
+
+    @Benchmark
+    public byte[] objectIdToByteArray() {
+        return objectId.toByteArray();
+    }
+
+    @Benchmark
+    public int objectIdCompareTo() {
+        return objectId.compareTo(otherObjectId);
+    }
+
+    @Benchmark
+    public String uuidToString() {
+        return uuid.toString();
+    }
+
+    @Benchmark
+    public UUID uuidFromString() {
+        return UUID.fromString(uuidString);
+    }
+
+    @Benchmark
+    public String jdkBase64Encode12() {
+        return encoder.encodeToString(raw12);
+    }
+
+    @Benchmark
+    public String jdkBase64Encode16() {
+        return encoder.encodeToString(raw16);
+    }
+
+    @Benchmark
+    public byte[] jdkBase64Decode12() {
+        return decoder.decode(jdkBase64_12);
+    }
+
+    @Benchmark
+    public byte[] jdkBase64Decode16() {
+        return decoder.decode(jdkBase64_16);
+    }
+
+}
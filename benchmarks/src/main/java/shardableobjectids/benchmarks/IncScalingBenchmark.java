@@ -0,0 +1,87 @@
+package shardableobjectids.benchmarks;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import shardableobjectids.ShardableObjectId;
+import shardableobjectids.ShardableObjectIdWithMoPrefix;
+
+/**
+ * Id generation throughput across thread counts, with the shared inc counter
+ * (block size 1) against thread leased inc blocks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IncScalingBenchmark {
+
+    @Param({ "1", "1024" })
+    public int incBlockSize;
+
+    @Setup
+    public void setUp() {
+        ShardableObjectId.setIncBlockSize(incBlockSize);
+        ShardableObjectIdWithMoPrefix.setIncBlockSize(incBlockSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ShardableObjectId.setIncBlockSize(1);
+        ShardableObjectIdWithMoPrefix.setIncBlockSize(1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ShardableObjectId get1Thread() {
+        return ShardableObjectId.get();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ShardableObjectId get4Threads() {
+        return ShardableObjectId.get();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public ShardableObjectId get16Threads() {
+        return ShardableObjectId.get();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public ShardableObjectId get64Threads() {
+        return ShardableObjectId.get();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ShardableObjectId getMaxThreads() {
+        return ShardableObjectId.get();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public ShardableObjectIdWithMoPrefix getWithMoPrefix16Threads() {
+        return ShardableObjectIdWithMoPrefix.get();
+    }
+}
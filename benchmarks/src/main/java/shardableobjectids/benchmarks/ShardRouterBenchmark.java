@@ -0,0 +1,104 @@
+package shardableobjectids.benchmarks;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import shardableobjectids.MoPrefixShardRouter;
+import shardableobjectids.ShardRouter;
+import shardableobjectids.ShardableObjectIdArray;
+import shardableobjectids.ShardableObjectIdWithMoPrefixArray;
+
+/**
+ * Lookup throughput of {@link ShardRouter} and {@link MoPrefixShardRouter}
+ * for jump consistent hash and range table routing over a fixed set of random
+ * ids.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardRouterBenchmark {
+
+    private static final int IDS = 1024;
+
+    @Param({ "16", "1024" })
+    public int partitions;
+
+    private ShardRouter jump;
+    private ShardRouter rangeTable;
+    private MoPrefixShardRouter moPrefixRangeTable;
+    private ShardableObjectIdArray ids;
+    private ShardableObjectIdWithMoPrefixArray moPrefixIds;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ids = new ShardableObjectIdArray(IDS);
+        moPrefixIds = new ShardableObjectIdWithMoPrefixArray(IDS);
+        for (int i = 0; i < IDS; i++) {
+            ids.add(random.nextInt(), random.nextInt(), random.nextInt());
+            moPrefixIds.add(201200 + random.nextInt(12) + 1,
+                    random.nextInt(), random.nextInt(), random.nextInt());
+        }
+
+        ShardableObjectIdArray splits = new ShardableObjectIdArray();
+        ShardableObjectIdWithMoPrefixArray moPrefixSplits = new ShardableObjectIdWithMoPrefixArray();
+        long step = (1L << 32) / partitions;
+        for (int i = 1; i < partitions; i++) {
+            splits.add((int) (i * step), 0, 0);
+            moPrefixSplits.add(201201 + (int) (12L * i / partitions),
+                    (int) (i * step), 0, 0);
+        }
+        moPrefixSplits.sort();
+        jump = ShardRouter.jumpConsistent(partitions);
+        rangeTable = ShardRouter.rangeTable(splits);
+        moPrefixRangeTable = MoPrefixShardRouter.rangeTable(moPrefixSplits);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public void jumpConsistent(Blackhole bh) {
+        for (int i = 0; i < IDS; i++) {
+            bh.consume(jump.route(ids.getMachine(i), ids.getTimeSecond(i),
+                    ids.getInc(i)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public void rangeTable(Blackhole bh) {
+        for (int i = 0; i < IDS; i++) {
+            bh.consume(rangeTable.route(ids.getMachine(i),
+                    ids.getTimeSecond(i), ids.getInc(i)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public void moPrefixRangeTable(Blackhole bh) {
+        for (int i = 0; i < IDS; i++) {
+            bh.consume(moPrefixRangeTable.route(moPrefixIds.getMonth(i),
+                    moPrefixIds.getMachine(i), moPrefixIds.getTimeSecond(i),
+                    moPrefixIds.getInc(i)));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package shardableobjectids.benchmarks;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import shardableobjectids.ShardableObjectId;
+
+/**
+ * Generation, codec and comparison paths of {@link ShardableObjectId}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardableObjectIdBenchmark {
+
+    private ShardableObjectId id;
+    private ShardableObjectId other;
+    private ShardableObjectId equal;
+    private String sortableBase64;
+    private String mongod;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        id = ShardableObjectId.get();
+        other = ShardableObjectId.get();
+        equal = new ShardableObjectId(id.toByteArray());
+        sortableBase64 = id.toStringSortableBase64URLSafe();
+        mongod = id.toStringMongod();
+        bytes = id.toByteArray();
+    }
+
+    @Benchmark
+    public ShardableObjectId get() {
+        return ShardableObjectId.get();
+    }
+
+    @Benchmark
+    public String toStringDefault() {
+        return id.toString();
+    }
+
+    @Benchmark
+    public String toStringSortableBase64URLSafe() {
+        return id.toStringSortableBase64URLSafe();
+    }
+
+    @Benchmark
+    public String toStringMongod() {
+        return id.toStringMongod();
+    }
+
+    @Benchmark
+    public byte[] toByteArray() {
+        return id.toByteArray();
+    }
+
+    @Benchmark
+    public ShardableObjectId parseSortableBase64() {
+        return new ShardableObjectId(sortableBase64);
+    }
+
+    @Benchmark
+    public ShardableObjectId parseMongod() {
+        return new ShardableObjectId(mongod);
+    }
+
+    @Benchmark
+    public ShardableObjectId fromByteArray() {
+        return new ShardableObjectId(bytes);
+    }
+
+    @Benchmark
+    public int compareTo() {
+        return id.compareTo(other);
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return id.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return id.equals(equal);
+    }
+
+    @Benchmark
+    public boolean equalsOther() {
+        return id.equals(other);
+    }
+
+}
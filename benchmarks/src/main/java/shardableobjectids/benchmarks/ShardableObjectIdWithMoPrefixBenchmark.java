@@ -0,0 +1,110 @@
+package shardableobjectids.benchmarks;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import shardableobjectids.ShardableObjectIdWithMoPrefix;
+
+/**
+ * Generation, codec and comparison paths of
+ * {@link ShardableObjectIdWithMoPrefix}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardableObjectIdWithMoPrefixBenchmark {
+
+    private ShardableObjectIdWithMoPrefix id;
+    private ShardableObjectIdWithMoPrefix other;
+    private ShardableObjectIdWithMoPrefix equal;
+    private String sortableBase64;
+    private String mongod;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        id = ShardableObjectIdWithMoPrefix.get();
+        other = ShardableObjectIdWithMoPrefix.get();
+        equal = new ShardableObjectIdWithMoPrefix(id.toByteArray());
+        sortableBase64 = id.toStringSortableBase64URLSafe();
+        mongod = id.toStringMongod();
+        bytes = id.toByteArray();
+    }
+
+    @Benchmark
+    public ShardableObjectIdWithMoPrefix get() {
+        return ShardableObjectIdWithMoPrefix.get();
+    }
+
+    @Benchmark
+    public String toStringDefault() {
+        return id.toString();
+    }
+
+    @Benchmark
+    public String toStringSortableBase64URLSafe() {
+        return id.toStringSortableBase64URLSafe();
+    }
+
+    @Benchmark
+    public String toStringMongod() {
+        return id.toStringMongod();
+    }
+
+    @Benchmark
+    public byte[] toByteArray() {
+        return id.toByteArray();
+    }
+
+    @Benchmark
+    public ShardableObjectIdWithMoPrefix parseSortableBase64() {
+        return new ShardableObjectIdWithMoPrefix(sortableBase64);
+    }
+
+    @Benchmark
+    public ShardableObjectIdWithMoPrefix parseMongod() {
+        return new ShardableObjectIdWithMoPrefix(mongod);
+    }
+
+    @Benchmark
+    public ShardableObjectIdWithMoPrefix fromByteArray() {
+        return new ShardableObjectIdWithMoPrefix(bytes);
+    }
+
+    @Benchmark
+    public int compareTo() {
+        return id.compareTo(other);
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return id.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return id.equals(equal);
+    }
+
+    @Benchmark
+    public boolean equalsOther() {
+        return id.equals(other);
+    }
+
+}
@@ -0,0 +1,97 @@
+package shardableobjectids.benchmarks;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import shardableobjectids.TimeUUID;
+import shardableobjectids.TimeUUIDUtils;
+
+/**
+ * Generation, parsing and ordering paths of {@link TimeUUID} and
+ * {@link TimeUUIDUtils}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeUUIDBenchmark {
+
+    private UUID uuid;
+    private UUID other;
+    private String sortable22;
+    private String hex32;
+    private String dashed36;
+    private byte[] tempBuf;
+
+    @Setup
+    public void setUp() {
+        uuid = TimeUUID.get();
+        other = TimeUUID.get();
+        sortable22 = TimeUUIDUtils.toSortableUrlSafeBase64(uuid);
+        dashed36 = uuid.toString();
+        hex32 = dashed36.replace("-", "");
+        tempBuf = new byte[16];
+    }
+
+    @Benchmark
+    public UUID get() {
+        return TimeUUID.get();
+    }
+
+    @Benchmark
+    public String getAsSortableUrlSafeBase64() {
+        return TimeUUID.getAsSortableUrlSafeBase64();
+    }
+
+    @Benchmark
+    public String toSortableUrlSafeBase64() {
+        return TimeUUIDUtils.toSortableUrlSafeBase64(uuid);
+    }
+
+    @Benchmark
+    public UUID fromSortableUrlSafeBase64() {
+        return TimeUUIDUtils.fromSortableUrlSafeBase64(sortable22);
+    }
+
+    @Benchmark
+    public byte[] toSortableBytes() {
+        return TimeUUIDUtils.toSortableBytes(uuid, tempBuf, 0);
+    }
+
+    @Benchmark
+    public UUID parse22() {
+        return TimeUUID.parse(sortable22);
+    }
+
+    @Benchmark
+    public UUID parse32() {
+        return TimeUUID.parse(hex32);
+    }
+
+    @Benchmark
+    public UUID parse36() {
+        return TimeUUID.parse(dashed36);
+    }
+
+    @Benchmark
+    public int compare() {
+        return TimeUUIDUtils.compare(uuid, other);
+    }
+
+}
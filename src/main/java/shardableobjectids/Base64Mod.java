@@ -21,6 +21,9 @@ package shardableobjectids;/*
  * limitations under the License.
  */
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -43,6 +46,8 @@ public class Base64Mod {
 
     private static final byte PAD = '=';
 
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
     /**
      * This is NOT standard Base64, but an encoding that preserves sorting.
      */
@@ -113,7 +118,7 @@ public class Base64Mod {
         byte[] target = new byte[(int) encodedSizeBound];
 
         int encoded = encode(in, offset, len, target, 0);
-        return new String(target, 0, encoded, Charset.forName("UTF-8"));
+        return new String(target, 0, encoded, ASCII);
 
     }
 
@@ -227,11 +232,7 @@ public class Base64Mod {
     }
 
     public static byte[] decode(ByteSupplier in, int len) {
-        long decodedSizeBound = getDecodedSizeBound(len);
-        if (decodedSizeBound > Integer.MAX_VALUE) {
-            throw new IllegalArgumentException("len too big");
-        }
-        byte[] target = new byte[(int) decodedSizeBound];
+        byte[] target = new byte[(int) getDecodedLength(len)];
 
         int decoded = decode(in, len, target, 0);
         if (decoded != target.length) {
@@ -267,12 +268,12 @@ public class Base64Mod {
      */
     public static int decode(ByteSupplier in, int inAvail, byte[] target,
             int targetOffset) {
-        long decodedSizeBound = getDecodedSizeBound(inAvail);
-        if (decodedSizeBound > target.length - targetOffset) {
+        long decodedLength = getDecodedLength(inAvail);
+        if (decodedLength > target.length - targetOffset) {
             throw new IllegalArgumentException(
-                    "target size not sufficient, need " + decodedSizeBound
+                    "target size not sufficient, need " + decodedLength
                             + ", missing: "
-                            + (decodedSizeBound - target.length - targetOffset));
+                            + (decodedLength - (target.length - targetOffset)));
         }
         int modulus = 0;
         int bitWorkArea = 0;
@@ -323,11 +324,651 @@ public class Base64Mod {
         return pos - targetOffset;
     }
 
+    /**
+     * Encodes the remaining bytes of <code>in</code> into <code>target</code>
+     * in place, advancing the positions of both buffers. Works on heap and
+     * direct buffers.
+     * 
+     * @return number of bytes written
+     * @throws IllegalArgumentException
+     *             if the remaining space of target is too small
+     */
+    public static int encode(ByteBuffer in, ByteBuffer target) {
+        int inAvail = in.remaining();
+        long resultLen = getEncodedLength(inAvail);
+        if (resultLen > target.remaining()) {
+            throw new IllegalArgumentException("target has "
+                    + target.remaining() + " remaining, but needs "
+                    + resultLen);
+        }
+        // the array variant checks against the padded size bound
+        if (in.hasArray() && target.hasArray()
+                && getEncodedSizeBound(inAvail) <= target.array().length
+                        - target.arrayOffset() - target.position()) {
+            int encoded = encode(in.array(), in.arrayOffset() + in.position(),
+                    inAvail, target.array(),
+                    target.arrayOffset() + target.position());
+            in.position(in.limit());
+            target.position(target.position() + encoded);
+            return encoded;
+        }
+        final byte[] t = URL_SAFE_ENCODE_TABLE;
+        int start = target.position();
+        while (in.remaining() >= BYTES_PER_UNENCODED_BLOCK) {
+            int w = ((in.get() & MASK_8BITS) << 16)
+                    | ((in.get() & MASK_8BITS) << 8) | (in.get() & MASK_8BITS);
+            target.put(t[(w >> 18) & MASK_6BITS]);
+            target.put(t[(w >> 12) & MASK_6BITS]);
+            target.put(t[(w >> 6) & MASK_6BITS]);
+            target.put(t[w & MASK_6BITS]);
+        }
+        switch (in.remaining()) {
+        case 1: // 8 bits = 6 + 2
+            int w = in.get() & MASK_8BITS;
+            target.put(t[(w >> 2) & MASK_6BITS]);
+            target.put(t[(w << 4) & MASK_6BITS]);
+            break;
+        case 2: // 16 bits = 6 + 6 + 4
+            w = ((in.get() & MASK_8BITS) << 8) | (in.get() & MASK_8BITS);
+            target.put(t[(w >> 10) & MASK_6BITS]);
+            target.put(t[(w >> 4) & MASK_6BITS]);
+            target.put(t[(w << 2) & MASK_6BITS]);
+            break;
+        }
+        return target.position() - start;
+    }
+
+    /**
+     * Same as {@link #encode(ByteBuffer, ByteBuffer)}, writing text.
+     * 
+     * @return number of chars written
+     */
+    public static int encode(ByteBuffer in, CharBuffer target) {
+        long resultLen = getEncodedLength(in.remaining());
+        if (resultLen > target.remaining()) {
+            throw new IllegalArgumentException("target has "
+                    + target.remaining() + " remaining, but needs "
+                    + resultLen);
+        }
+        final byte[] t = URL_SAFE_ENCODE_TABLE;
+        int start = target.position();
+        while (in.remaining() >= BYTES_PER_UNENCODED_BLOCK) {
+            int w = ((in.get() & MASK_8BITS) << 16)
+                    | ((in.get() & MASK_8BITS) << 8) | (in.get() & MASK_8BITS);
+            target.put((char) t[(w >> 18) & MASK_6BITS]);
+            target.put((char) t[(w >> 12) & MASK_6BITS]);
+            target.put((char) t[(w >> 6) & MASK_6BITS]);
+            target.put((char) t[w & MASK_6BITS]);
+        }
+        switch (in.remaining()) {
+        case 1: // 8 bits = 6 + 2
+            int w = in.get() & MASK_8BITS;
+            target.put((char) t[(w >> 2) & MASK_6BITS]);
+            target.put((char) t[(w << 4) & MASK_6BITS]);
+            break;
+        case 2: // 16 bits = 6 + 6 + 4
+            w = ((in.get() & MASK_8BITS) << 8) | (in.get() & MASK_8BITS);
+            target.put((char) t[(w >> 10) & MASK_6BITS]);
+            target.put((char) t[(w >> 4) & MASK_6BITS]);
+            target.put((char) t[(w << 2) & MASK_6BITS]);
+            break;
+        }
+        return target.position() - start;
+    }
+
+    /**
+     * Decodes the remaining ascii bytes of <code>in</code> into
+     * <code>target</code> in place, advancing the positions of both buffers.
+     * Same garbage-in, garbage-out rules as
+     * {@link #decode(ByteSupplier, int, byte[], int)}. All remaining input is
+     * consumed, including anything after a pad char, so <code>in</code> ends
+     * at its limit.
+     * 
+     * @return number of bytes written
+     * @throws IllegalArgumentException
+     *             if target has less than {@link #getDecodedLength(long)}
+     *             remaining for the input
+     */
+    public static int decode(ByteBuffer in, ByteBuffer target) {
+        int decoded = decode(new ByteBufferByteSupplier(in), in.remaining(),
+                target);
+        in.position(in.limit());
+        return decoded;
+    }
+
+    /**
+     * Same as {@link #decode(ByteBuffer, ByteBuffer)}, reading text. Also
+     * consumes all remaining input.
+     * 
+     * @return number of bytes written
+     */
+    public static int decode(CharBuffer in, ByteBuffer target) {
+        int decoded = decode(new StringByteSupplier(in, 0), in.remaining(),
+                target);
+        in.position(in.limit());
+        return decoded;
+    }
+
+    /**
+     * Variant of {@link #decode(ByteSupplier, int, byte[], int)} that writes
+     * into the remaining space of a buffer.
+     */
+    public static int decode(ByteSupplier in, int inAvail, ByteBuffer target) {
+        long decodedLength = getDecodedLength(inAvail);
+        if (decodedLength > target.remaining()) {
+            throw new IllegalArgumentException(
+                    "target size not sufficient, need " + decodedLength
+                            + ", remaining: " + target.remaining());
+        }
+        int modulus = 0;
+        int bitWorkArea = 0;
+        int start = target.position();
+        for (int i = 0; i < inAvail; i++) {
+            byte b = in.nextByte();
+            if (b == PAD) {
+                break;
+            } else {
+                if (b >= 0 && b < DECODE_TABLE.length) {
+                    int result = DECODE_TABLE[b];
+                    if (result >= 0) {
+                        modulus = (modulus + 1) % BYTES_PER_ENCODED_BLOCK;
+                        bitWorkArea = (bitWorkArea << BITS_PER_ENCODED_BYTE)
+                                + result;
+                        if (modulus == 0) {
+                            target.put((byte) ((bitWorkArea >> 16) & MASK_8BITS));
+                            target.put((byte) ((bitWorkArea >> 8) & MASK_8BITS));
+                            target.put((byte) (bitWorkArea & MASK_8BITS));
+                        }
+                    }
+                }
+            }
+        }
+
+        switch (modulus) {
+        case 2: // 12 bits = 8 + 4
+            bitWorkArea = bitWorkArea >> 4; // dump the extra 4 bits
+            target.put((byte) ((bitWorkArea) & MASK_8BITS));
+            break;
+        case 3: // 18 bits = 8 + 8 + 2
+            bitWorkArea = bitWorkArea >> 2; // dump 2 bits
+            target.put((byte) ((bitWorkArea >> 8) & MASK_8BITS));
+            target.put((byte) ((bitWorkArea) & MASK_8BITS));
+            break;
+        }
+
+        return target.position() - start;
+    }
+
+    /** Encoded length of the 12 bytes of a ShardableObjectId. */
+    public static final int ENCODED_96_BITS_LENGTH = 16;
+
+    /** Encoded length of 16 bytes, eg. a ShardableObjectIdWithMoPrefix. */
+    public static final int ENCODED_128_BITS_LENGTH = 22;
+
+    /**
+     * Encoded length of 14 bytes, eg. a
+     * ShardableObjectIdWithCompactMoPrefix.
+     */
+    public static final int ENCODED_112_BITS_LENGTH = 19;
+
+    /**
+     * Fixed width variant of {@link #encode(byte[], int, int, byte[], int)}
+     * for 12 bytes, given as their big endian long and int parts. Writes
+     * {@link #ENCODED_96_BITS_LENGTH} chars.
+     * 
+     * @param high64
+     *            bytes 0-7
+     * @param low32
+     *            bytes 8-11
+     * @return number of chars written
+     */
+    public static int encode96(long high64, int low32, char[] target,
+            int targetOffset) {
+        checkTarget(target.length, targetOffset, ENCODED_96_BITS_LENGTH);
+        return encodeBits(high64, (long) low32 << 32, ENCODED_96_BITS_LENGTH,
+                target, targetOffset);
+    }
+
+    /**
+     * Fixed width variant of {@link #encode(byte[], int, int, byte[], int)}
+     * for 16 bytes, given as their two big endian longs. Writes
+     * {@link #ENCODED_128_BITS_LENGTH} chars.
+     * 
+     * @param high64
+     *            bytes 0-7
+     * @param low64
+     *            bytes 8-15
+     * @return number of chars written
+     */
+    public static int encode128(long high64, long low64, char[] target,
+            int targetOffset) {
+        checkTarget(target.length, targetOffset, ENCODED_128_BITS_LENGTH);
+        return encodeBits(high64, low64, ENCODED_128_BITS_LENGTH, target,
+                targetOffset);
+    }
+
+    /**
+     * Same as {@link #encode96(long, int, char[], int)}, writing ascii bytes.
+     */
+    public static int encode96(long high64, int low32, byte[] target,
+            int targetOffset) {
+        checkTarget(target.length, targetOffset, ENCODED_96_BITS_LENGTH);
+        return encodeBits(high64, (long) low32 << 32, ENCODED_96_BITS_LENGTH,
+                target, targetOffset);
+    }
+
+    /**
+     * Same as {@link #encode128(long, long, char[], int)}, writing ascii
+     * bytes.
+     */
+    public static int encode128(long high64, long low64, byte[] target,
+            int targetOffset) {
+        checkTarget(target.length, targetOffset, ENCODED_128_BITS_LENGTH);
+        return encodeBits(high64, low64, ENCODED_128_BITS_LENGTH, target,
+                targetOffset);
+    }
+
+    /**
+     * Same as {@link #encode96(long, int, char[], int)}, appending to any
+     * {@link Appendable} without intermediate buffers.
+     */
+    public static Appendable append96(long high64, int low32,
+            Appendable target) throws IOException {
+        appendBits(high64, (long) low32 << 32, ENCODED_96_BITS_LENGTH, target);
+        return target;
+    }
+
+    /**
+     * Same as {@link #encode128(long, long, char[], int)}, appending to any
+     * {@link Appendable} without intermediate buffers.
+     */
+    public static Appendable append128(long high64, long low64,
+            Appendable target) throws IOException {
+        appendBits(high64, low64, ENCODED_128_BITS_LENGTH, target);
+        return target;
+    }
+
+    /**
+     * {@link StringBuilder} variant of
+     * {@link #append96(long, int, Appendable)}, which cannot throw.
+     */
+    public static StringBuilder append96(long high64, int low32,
+            StringBuilder target) {
+        appendBits(high64, (long) low32 << 32, ENCODED_96_BITS_LENGTH, target);
+        return target;
+    }
+
+    /**
+     * {@link StringBuilder} variant of
+     * {@link #append128(long, long, Appendable)}, which cannot throw.
+     */
+    public static StringBuilder append128(long high64, long low64,
+            StringBuilder target) {
+        appendBits(high64, low64, ENCODED_128_BITS_LENGTH, target);
+        return target;
+    }
+
+    /**
+     * Appends the first len (at least 11) chars of the 128 bit stream high,
+     * low one by one, without intermediate buffers.
+     */
+    private static void appendBits(long high, long low, int len,
+            Appendable target) throws IOException {
+        final byte[] t = URL_SAFE_ENCODE_TABLE;
+        for (int shift = 58; shift >= 4; shift -= 6) {
+            target.append((char) t[(int) (high >>> shift) & MASK_6BITS]);
+        }
+        target.append((char) t[(((int) high & 0xf) << 2) | (int) (low >>> 62)]);
+        // a negative shift moves the last bits of low up into a padded char
+        for (int i = 11, shift = 56; i < len; i++, shift -= 6) {
+            target.append((char) t[(int) (shift >= 0 ? low >>> shift
+                    : low << -shift) & MASK_6BITS]);
+        }
+    }
+
+    /**
+     * {@link StringBuilder} variant of
+     * {@link #appendBits(long, long, int, Appendable)}.
+     */
+    private static void appendBits(long high, long low, int len,
+            StringBuilder target) {
+        final byte[] t = URL_SAFE_ENCODE_TABLE;
+        for (int shift = 58; shift >= 4; shift -= 6) {
+            target.append((char) t[(int) (high >>> shift) & MASK_6BITS]);
+        }
+        target.append((char) t[(((int) high & 0xf) << 2) | (int) (low >>> 62)]);
+        for (int i = 11, shift = 56; i < len; i++, shift -= 6) {
+            target.append((char) t[(int) (shift >= 0 ? low >>> shift
+                    : low << -shift) & MASK_6BITS]);
+        }
+    }
+
+    /**
+     * The one unrolled encoder behind all fixed widths: writes the first len
+     * (at most 22) chars of the 128 bit stream high, low. Shorter values sit
+     * left aligned in the stream, so the trailing zero bits pad their last
+     * char. Callers check the target.
+     */
+    @SuppressWarnings("fallthrough")
+    private static int encodeBits(long high, long low, int len, char[] target,
+            int o) {
+        final byte[] t = URL_SAFE_ENCODE_TABLE;
+        switch (len) {
+        case 22:
+            target[o + 21] = (char) t[((int) low & 0x3) << 4];
+            // fall through
+        case 21:
+            target[o + 20] = (char) t[(int) (low >>> 2) & MASK_6BITS];
+            // fall through
+        case 20:
+            target[o + 19] = (char) t[(int) (low >>> 8) & MASK_6BITS];
+            // fall through
+        case 19:
+            target[o + 18] = (char) t[(int) (low >>> 14) & MASK_6BITS];
+            // fall through
+        case 18:
+            target[o + 17] = (char) t[(int) (low >>> 20) & MASK_6BITS];
+            // fall through
+        case 17:
+            target[o + 16] = (char) t[(int) (low >>> 26) & MASK_6BITS];
+            // fall through
+        case 16:
+            target[o + 15] = (char) t[(int) (low >>> 32) & MASK_6BITS];
+            target[o + 14] = (char) t[(int) (low >>> 38) & MASK_6BITS];
+            target[o + 13] = (char) t[(int) (low >>> 44) & MASK_6BITS];
+            target[o + 12] = (char) t[(int) (low >>> 50) & MASK_6BITS];
+            target[o + 11] = (char) t[(int) (low >>> 56) & MASK_6BITS];
+            target[o + 10] = (char) t[(((int) high & 0xf) << 2)
+                    | (int) (low >>> 62)];
+            target[o + 9] = (char) t[(int) (high >>> 4) & MASK_6BITS];
+            target[o + 8] = (char) t[(int) (high >>> 10) & MASK_6BITS];
+            target[o + 7] = (char) t[(int) (high >>> 16) & MASK_6BITS];
+            target[o + 6] = (char) t[(int) (high >>> 22) & MASK_6BITS];
+            target[o + 5] = (char) t[(int) (high >>> 28) & MASK_6BITS];
+            target[o + 4] = (char) t[(int) (high >>> 34) & MASK_6BITS];
+            target[o + 3] = (char) t[(int) (high >>> 40) & MASK_6BITS];
+            target[o + 2] = (char) t[(int) (high >>> 46) & MASK_6BITS];
+            target[o + 1] = (char) t[(int) (high >>> 52) & MASK_6BITS];
+            target[o] = (char) t[(int) (high >>> 58)];
+            return len;
+        default:
+            throw new IllegalArgumentException("unsupported width: " + len);
+        }
+    }
+
+    /**
+     * Same as {@link #encodeBits(long, long, int, char[], int)}, writing ascii
+     * bytes.
+     */
+    @SuppressWarnings("fallthrough")
+    private static int encodeBits(long high, long low, int len, byte[] target,
+            int o) {
+        final byte[] t = URL_SAFE_ENCODE_TABLE;
+        switch (len) {
+        case 22:
+            target[o + 21] = t[((int) low & 0x3) << 4];
+            // fall through
+        case 21:
+            target[o + 20] = t[(int) (low >>> 2) & MASK_6BITS];
+            // fall through
+        case 20:
+            target[o + 19] = t[(int) (low >>> 8) & MASK_6BITS];
+            // fall through
+        case 19:
+            target[o + 18] = t[(int) (low >>> 14) & MASK_6BITS];
+            // fall through
+        case 18:
+            target[o + 17] = t[(int) (low >>> 20) & MASK_6BITS];
+            // fall through
+        case 17:
+            target[o + 16] = t[(int) (low >>> 26) & MASK_6BITS];
+            // fall through
+        case 16:
+            target[o + 15] = t[(int) (low >>> 32) & MASK_6BITS];
+            target[o + 14] = t[(int) (low >>> 38) & MASK_6BITS];
+            target[o + 13] = t[(int) (low >>> 44) & MASK_6BITS];
+            target[o + 12] = t[(int) (low >>> 50) & MASK_6BITS];
+            target[o + 11] = t[(int) (low >>> 56) & MASK_6BITS];
+            target[o + 10] = t[(((int) high & 0xf) << 2) | (int) (low >>> 62)];
+            target[o + 9] = t[(int) (high >>> 4) & MASK_6BITS];
+            target[o + 8] = t[(int) (high >>> 10) & MASK_6BITS];
+            target[o + 7] = t[(int) (high >>> 16) & MASK_6BITS];
+            target[o + 6] = t[(int) (high >>> 22) & MASK_6BITS];
+            target[o + 5] = t[(int) (high >>> 28) & MASK_6BITS];
+            target[o + 4] = t[(int) (high >>> 34) & MASK_6BITS];
+            target[o + 3] = t[(int) (high >>> 40) & MASK_6BITS];
+            target[o + 2] = t[(int) (high >>> 46) & MASK_6BITS];
+            target[o + 1] = t[(int) (high >>> 52) & MASK_6BITS];
+            target[o] = t[(int) (high >>> 58)];
+            return len;
+        default:
+            throw new IllegalArgumentException("unsupported width: " + len);
+        }
+    }
+
+    /**
+     * Fixed width variant of {@link #encode(byte[], int, int, byte[], int)}
+     * for 14 bytes, given as their big endian 6 and 8 byte parts. Writes
+     * {@link #ENCODED_112_BITS_LENGTH} chars, the first 19 chars of the 16
+     * bytes shifted left by 2 bytes.
+     * 
+     * @param high48
+     *            bytes 0-5 in the low 48 bits
+     * @param low64
+     *            bytes 6-13
+     * @return number of chars written
+     */
+    public static int encode112(long high48, long low64, char[] target,
+            int targetOffset) {
+        checkTarget(target.length, targetOffset, ENCODED_112_BITS_LENGTH);
+        return encodeBits((high48 << 16) | (low64 >>> 48), low64 << 16,
+                ENCODED_112_BITS_LENGTH, target, targetOffset);
+    }
+
+    /**
+     * Same as {@link #encode112(long, long, char[], int)}, writing ascii
+     * bytes.
+     */
+    public static int encode112(long high48, long low64, byte[] target,
+            int targetOffset) {
+        checkTarget(target.length, targetOffset, ENCODED_112_BITS_LENGTH);
+        return encodeBits((high48 << 16) | (low64 >>> 48), low64 << 16,
+                ENCODED_112_BITS_LENGTH, target, targetOffset);
+    }
+
+    /**
+     * Same as {@link #encode112(long, long, char[], int)}, appending to any
+     * {@link Appendable} without intermediate buffers.
+     */
+    public static Appendable append112(long high48, long low64,
+            Appendable target) throws IOException {
+        appendBits((high48 << 16) | (low64 >>> 48), low64 << 16,
+                ENCODED_112_BITS_LENGTH, target);
+        return target;
+    }
+
+    /**
+     * {@link StringBuilder} variant of
+     * {@link #append112(long, long, Appendable)}, which cannot throw.
+     */
+    public static StringBuilder append112(long high48, long low64,
+            StringBuilder target) {
+        appendBits((high48 << 16) | (low64 >>> 48), low64 << 16,
+                ENCODED_112_BITS_LENGTH, target);
+        return target;
+    }
+
+    public static String encode112ToString(long high48, long low64) {
+        char[] target = new char[ENCODED_112_BITS_LENGTH];
+        encode112(high48, low64, target, 0);
+        return new String(target);
+    }
+
+    private static void checkTarget(int targetLength, int targetOffset,
+            int needed) {
+        if (targetOffset < 0 || targetLength - targetOffset < needed) {
+            throw new IllegalArgumentException("target needs " + needed
+                    + " from offset " + targetOffset + ", has " + targetLength);
+        }
+    }
+
+    public static String encode96ToString(long high64, int low32) {
+        char[] target = new char[ENCODED_96_BITS_LENGTH];
+        encode96(high64, low32, target, 0);
+        return new String(target);
+    }
+
+    public static String encode128ToString(long high64, long low64) {
+        char[] target = new char[ENCODED_128_BITS_LENGTH];
+        encode128(high64, low64, target, 0);
+        return new String(target);
+    }
+
+    /**
+     * Decodes the first 8 bytes of a fixed width encoded 12 or 16 byte value
+     * as written by {@link #encode96(long, int, char[], int)} and
+     * {@link #encode128(long, long, char[], int)}.
+     * <p>
+     * Unlike {@link #decode(ByteSupplier, int, byte[], int)} this is strict:
+     * any character outside of the alphabet, including whitespace, makes it
+     * throw.
+     * </p>
+     * 
+     * @throws IllegalArgumentException
+     *             on characters outside of the alphabet
+     */
+    public static long decodeHigh64(CharSequence in, int offset) {
+        final int o = offset;
+        return (value(in.charAt(o)) << 58) | (value(in.charAt(o + 1)) << 52)
+                | (value(in.charAt(o + 2)) << 46)
+                | (value(in.charAt(o + 3)) << 40)
+                | (value(in.charAt(o + 4)) << 34)
+                | (value(in.charAt(o + 5)) << 28)
+                | (value(in.charAt(o + 6)) << 22)
+                | (value(in.charAt(o + 7)) << 16)
+                | (value(in.charAt(o + 8)) << 10)
+                | (value(in.charAt(o + 9)) << 4)
+                | (value(in.charAt(o + 10)) >>> 2);
+    }
+
+    /**
+     * Decodes bytes 8-11 of a value written by
+     * {@link #encode96(long, int, char[], int)}.
+     * 
+     * @see #decodeHigh64(CharSequence, int)
+     */
+    public static int decode96Low32(CharSequence in, int offset) {
+        final int o = offset;
+        return (int) (((value(in.charAt(o + 10)) & 0x3) << 30)
+                | (value(in.charAt(o + 11)) << 24)
+                | (value(in.charAt(o + 12)) << 18)
+                | (value(in.charAt(o + 13)) << 12)
+                | (value(in.charAt(o + 14)) << 6) | value(in.charAt(o + 15)));
+    }
+
+    /**
+     * Decodes bytes 8-15 of a value written by
+     * {@link #encode128(long, long, char[], int)}.
+     * 
+     * @see #decodeHigh64(CharSequence, int)
+     */
+    public static long decode128Low64(CharSequence in, int offset) {
+        final int o = offset;
+        return ((value(in.charAt(o + 10)) & 0x3) << 62)
+                | (value(in.charAt(o + 11)) << 56)
+                | (value(in.charAt(o + 12)) << 50)
+                | (value(in.charAt(o + 13)) << 44)
+                | (value(in.charAt(o + 14)) << 38)
+                | (value(in.charAt(o + 15)) << 32)
+                | (value(in.charAt(o + 16)) << 26)
+                | (value(in.charAt(o + 17)) << 20)
+                | (value(in.charAt(o + 18)) << 14)
+                | (value(in.charAt(o + 19)) << 8)
+                | (value(in.charAt(o + 20)) << 2)
+                | (value(in.charAt(o + 21)) >>> 4);
+    }
+
+    /**
+     * Same as {@link #decodeHigh64(CharSequence, int)} for ascii bytes.
+     */
+    public static long decodeHigh64(byte[] in, int offset) {
+        final int o = offset;
+        return (value(in[o]) << 58) | (value(in[o + 1]) << 52)
+                | (value(in[o + 2]) << 46) | (value(in[o + 3]) << 40)
+                | (value(in[o + 4]) << 34) | (value(in[o + 5]) << 28)
+                | (value(in[o + 6]) << 22) | (value(in[o + 7]) << 16)
+                | (value(in[o + 8]) << 10) | (value(in[o + 9]) << 4)
+                | (value(in[o + 10]) >>> 2);
+    }
+
+    /**
+     * Same as {@link #decode96Low32(CharSequence, int)} for ascii bytes.
+     */
+    public static int decode96Low32(byte[] in, int offset) {
+        final int o = offset;
+        return (int) (((value(in[o + 10]) & 0x3) << 30)
+                | (value(in[o + 11]) << 24) | (value(in[o + 12]) << 18)
+                | (value(in[o + 13]) << 12) | (value(in[o + 14]) << 6)
+                | value(in[o + 15]));
+    }
+
+    /**
+     * Same as {@link #decode128Low64(CharSequence, int)} for ascii bytes.
+     */
+    public static long decode128Low64(byte[] in, int offset) {
+        final int o = offset;
+        return ((value(in[o + 10]) & 0x3) << 62) | (value(in[o + 11]) << 56)
+                | (value(in[o + 12]) << 50) | (value(in[o + 13]) << 44)
+                | (value(in[o + 14]) << 38) | (value(in[o + 15]) << 32)
+                | (value(in[o + 16]) << 26) | (value(in[o + 17]) << 20)
+                | (value(in[o + 18]) << 14) | (value(in[o + 19]) << 8)
+                | (value(in[o + 20]) << 2) | (value(in[o + 21]) >>> 4);
+    }
+
+    /**
+     * @return 6 bit value of the char or -1 if it is not in the alphabet
+     */
+    static int sextet(char c) {
+        return c < DECODE_TABLE.length ? DECODE_TABLE[c] : -1;
+    }
+
+    private static long value(int c) {
+        if (c >= 0 && c < DECODE_TABLE.length) {
+            int result = DECODE_TABLE[c];
+            if (result >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("not a sortable base64 char: "
+                + (char) c);
+    }
+
+    private static long value(byte b) {
+        return value((int) b & MASK_8BITS);
+    }
+
     protected static long getEncodedSizeBound(long inAvail) {
         return ((inAvail + BYTES_PER_UNENCODED_BLOCK - 1) / BYTES_PER_UNENCODED_BLOCK)
                 * BYTES_PER_ENCODED_BLOCK;
     }
 
+    /**
+     * @return exact length of the unpadded encoding of inAvail bytes
+     */
+    protected static long getEncodedLength(long inAvail) {
+        return (inAvail * BYTES_PER_ENCODED_BLOCK + BYTES_PER_UNENCODED_BLOCK - 1)
+                / BYTES_PER_UNENCODED_BLOCK;
+    }
+
+    /**
+     * @return the number of bytes that in chars of the alphabet decode to,
+     *         without trailing partial bytes; less if the input holds pad or
+     *         other chars
+     */
+    public static long getDecodedLength(long in) {
+        return in * BITS_PER_ENCODED_BYTE / 8;
+    }
+
     public static long getDecodedSizeBound(long in) {
         long len = ((in + BYTES_PER_ENCODED_BLOCK - 1) / BYTES_PER_ENCODED_BLOCK)
                 * BYTES_PER_UNENCODED_BLOCK;
@@ -429,6 +1070,25 @@ public class Base64Mod {
         }
     }
 
+    /**
+     * Reads relative from the buffer, advancing its position.
+     */
+    public static class ByteBufferByteSupplier implements ByteSupplier {
+        private ByteBuffer b;
+
+        public ByteBufferByteSupplier(ByteBuffer bParam) {
+            reset(bParam);
+        }
+
+        public void reset(ByteBuffer bParam) {
+            b = bParam;
+        }
+
+        public byte nextByte() {
+            return b.get();
+        }
+    }
+
     public static String decodingTableGenerator() {
         byte max = 0;
         Map<Byte, Integer> mappedChars = new HashMap<Byte, Integer>();
@@ -0,0 +1,20 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Source of the clock sequence and node half of time uuids generated by
+ * {@link TimeUUID#get()}. Implementations for the usual sources are in
+ * {@link ClockSeqAndNodeProviders}; the one in use is asked once, on the first
+ * uuid generated.
+ */
+public interface ClockSeqAndNodeProvider {
+
+    /**
+     * @return the least significant bits of a time uuid: variant, 14 bits
+     *         clock sequence and 48 bits node
+     */
+    long getClockSeqAndNode();
+}
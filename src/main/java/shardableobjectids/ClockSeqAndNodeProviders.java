@@ -0,0 +1,212 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+
+import com.eaio.uuid.UUIDGen;
+
+/**
+ * {@link ClockSeqAndNodeProvider} implementations and the clock sequence and
+ * node used by {@link TimeUUID#get()}.
+ * <p>
+ * The value is resolved lazily, on first use, by the provider set with
+ * {@link #setProvider(ClockSeqAndNodeProvider)}. The default is
+ * {@link #secureRandom()}, which neither forks processes nor scans network
+ * interfaces like {@link #eaio()} does.
+ */
+public final class ClockSeqAndNodeProviders {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    /**
+     * RFC 4122 variant bits of the clock sequence.
+     */
+    private static final long VARIANT = 0x8000000000000000L;
+
+    /**
+     * Multicast bit of the node, marks a node that is not a MAC address.
+     */
+    private static final long MULTICAST = 0x010000000000L;
+
+    private static final long NODE_MASK = 0xFFFFFFFFFFFFL;
+
+    private static final int CLOCK_SEQ_MASK = 0x3FFF;
+
+    private static volatile ClockSeqAndNodeProvider _provider = secureRandom();
+
+    private static volatile boolean _resolved;
+
+    private static long _clockSeqAndNode;
+
+    /**
+     * Only a helper.
+     */
+    private ClockSeqAndNodeProviders() {
+
+    }
+
+    /**
+     * The clock sequence and node of new time uuids, asks the provider on the
+     * first call only.
+     */
+    public static long getClockSeqAndNode() {
+        if (!_resolved) {
+            synchronized (ClockSeqAndNodeProviders.class) {
+                if (!_resolved) {
+                    _clockSeqAndNode = _provider.getClockSeqAndNode();
+                    _resolved = true;
+                }
+            }
+        }
+        return _clockSeqAndNode;
+    }
+
+    /**
+     * Sets the provider asked for the clock sequence and node. Call before
+     * generating uuids; a later call makes uuids generated afterwards use the
+     * new provider's value.
+     */
+    public static synchronized void setProvider(
+            ClockSeqAndNodeProvider provider) {
+        if (provider == null)
+            throw new IllegalArgumentException("provider is null");
+        _provider = provider;
+        _resolved = false;
+    }
+
+    public static ClockSeqAndNodeProvider getProvider() {
+        return _provider;
+    }
+
+    /**
+     * Combines clock sequence and node into the least significant bits of a
+     * time uuid.
+     * 
+     * @param clockSeq
+     *            lower 14 bits are used
+     * @param node
+     *            lower 48 bits are used
+     */
+    public static long toClockSeqAndNode(int clockSeq, long node) {
+        return VARIANT | ((long) (clockSeq & CLOCK_SEQ_MASK) << 48)
+                | (node & NODE_MASK);
+    }
+
+    /**
+     * A fixed clock sequence and node, eg. from configuration.
+     */
+    public static ClockSeqAndNodeProvider explicit(int clockSeq, long node) {
+        final long clockSeqAndNode = toClockSeqAndNode(clockSeq, node);
+        return new ClockSeqAndNodeProvider() {
+            @Override
+            public long getClockSeqAndNode() {
+                return clockSeqAndNode;
+            }
+        };
+    }
+
+    /**
+     * Random clock sequence and node per process, mixed with host local state
+     * (host name, clocks) in case the random source is weak. The node has the
+     * multicast bit set as RFC 4122 requires for nodes that are no MAC
+     * address.
+     */
+    public static ClockSeqAndNodeProvider secureRandom() {
+        return new ClockSeqAndNodeProvider() {
+            @Override
+            public long getClockSeqAndNode() {
+                long random = new SecureRandom().nextLong();
+                String host = System.getenv("HOSTNAME");
+                long local = (host == null ? 0 : host.hashCode()) * 31L
+                        + System.nanoTime();
+                local = local * 31 + System.currentTimeMillis();
+                long mixed = random ^ fmix64(local);
+                return toClockSeqAndNode((int) (mixed >>> 48),
+                        mixed | MULTICAST);
+            }
+        };
+    }
+
+    /**
+     * The node stored in a file, with a clock sequence one higher than the one
+     * stored, as RFC 4122 recommends when the last used time is unknown. The
+     * new value is written back. If the file does not exist the fallback's
+     * value is used and stored.
+     * <p>
+     * Processes running concurrently must not share the file.
+     * 
+     * @throws IllegalArgumentException
+     *             from getClockSeqAndNode() if the file content is not 16 hex
+     *             digits
+     */
+    public static ClockSeqAndNodeProvider cachedFile(final File file,
+            final ClockSeqAndNodeProvider fallback) {
+        return new ClockSeqAndNodeProvider() {
+            @Override
+            public long getClockSeqAndNode() {
+                long clockSeqAndNode;
+                String stored = null;
+                if (file.isFile()) {
+                    try {
+                        stored = new String(Files.readAllBytes(file.toPath()),
+                                ASCII).trim();
+                    } catch (IOException e) {
+                        // unreadable, same as missing
+                    }
+                }
+                if (stored != null) {
+                    if (stored.length() != 16 || !HexCodec.isHex(stored, 0, 16))
+                        throw new IllegalArgumentException(
+                                "invalid clock sequence and node [" + stored
+                                        + "] in " + file);
+                    long old = ((long) HexCodec.decodeInt(stored, 0) << 32)
+                            | (HexCodec.decodeInt(stored, 8) & 0xFFFFFFFFL);
+                    clockSeqAndNode = toClockSeqAndNode(
+                            (int) (old >>> 48) + 1, old);
+                } else {
+                    clockSeqAndNode = fallback.getClockSeqAndNode();
+                }
+                char[] hex = new char[16];
+                HexCodec.encodeInt((int) (clockSeqAndNode >>> 32), hex, 0);
+                HexCodec.encodeInt((int) clockSeqAndNode, hex, 8);
+                try {
+                    Files.write(file.toPath(), new String(hex).getBytes(ASCII));
+                } catch (IOException e) {
+                    // not cached, next start asks the fallback again
+                }
+                return clockSeqAndNode;
+            }
+        };
+    }
+
+    /**
+     * murmur3 64 bit finalizer.
+     */
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    /**
+     * The clock sequence and node of <code>com.eaio.uuid.UUIDGen</code>, which
+     * looks up the MAC address by running ifconfig, ipconfig or netstat.
+     */
+    public static ClockSeqAndNodeProvider eaio() {
+        return new ClockSeqAndNodeProvider() {
+            @Override
+            public long getClockSeqAndNode() {
+                return UUIDGen.getClockSeqAndNode();
+            }
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Thread safe {@link IdHashSet}: ids are spread over lock striped sub-sets by
+ * the high bits of their hash, so concurrent writers mostly lock different
+ * stripes.
+ */
+public class ConcurrentIdHashSet {
+
+    private final IdHashSet[] stripes;
+    private final int shift;
+
+    public ConcurrentIdHashSet() {
+        this(16, 64);
+    }
+
+    /**
+     * @param expectedSize
+     *            total expected number of ids
+     * @param concurrency
+     *            number of stripes, rounded up to a power of two
+     */
+    public ConcurrentIdHashSet(int expectedSize, int concurrency) {
+        if (concurrency < 1 || concurrency > (1 << 16))
+            throw new IllegalArgumentException("concurrency out of range: "
+                    + concurrency);
+        int n = 1;
+        int bits = 0;
+        while (n < concurrency) {
+            n <<= 1;
+            bits++;
+        }
+        stripes = new IdHashSet[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new IdHashSet(expectedSize / n + 1);
+        }
+        // the tables use the low bits, pick stripes by the high ones
+        shift = 32 - bits;
+    }
+
+    private IdHashSet stripe(int machine, int time, int inc) {
+        if (stripes.length == 1)
+            return stripes[0];
+        return stripes[IdHashTable.hash(machine, time, inc) >>> shift];
+    }
+
+    public boolean add(ShardableObjectId id) {
+        return add(id._machine, id._time, id._inc);
+    }
+
+    public boolean add(int machine, int time, int inc) {
+        IdHashSet s = stripe(machine, time, inc);
+        synchronized (s) {
+            return s.add(machine, time, inc);
+        }
+    }
+
+    public boolean contains(ShardableObjectId id) {
+        return contains(id._machine, id._time, id._inc);
+    }
+
+    public boolean contains(int machine, int time, int inc) {
+        IdHashSet s = stripe(machine, time, inc);
+        synchronized (s) {
+            return s.contains(machine, time, inc);
+        }
+    }
+
+    public boolean remove(ShardableObjectId id) {
+        return remove(id._machine, id._time, id._inc);
+    }
+
+    public boolean remove(int machine, int time, int inc) {
+        IdHashSet s = stripe(machine, time, inc);
+        synchronized (s) {
+            return s.remove(machine, time, inc);
+        }
+    }
+
+    /**
+     * @return sum of the stripe sizes, not an atomic snapshot
+     */
+    public int size() {
+        int size = 0;
+        for (IdHashSet s : stripes) {
+            synchronized (s) {
+                size += s.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (IdHashSet s : stripes) {
+            synchronized (s) {
+                s.clear();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Single pass decoder behind the tryParse methods of the id types: reads a
+ * fixed width value of up to 128 bits from sortable base64 or hex chars
+ * straight into {@link #high} and {@link #low}, right aligned, without
+ * exceptions for malformed input.
+ */
+final class FixedWidthDecoder {
+
+    /** bits 64-127 of the value */
+    long high;
+
+    /** bits 0-63 of the value */
+    long low;
+
+    /**
+     * Decodes a value of bits bits, a multiple of 4, from the range when it
+     * has the sortable base64 or the hex length of that width.
+     *
+     * @return false if the range is invalid, has another length or does not
+     *         decode
+     */
+    boolean decode(CharSequence s, int offset, int len, int bits) {
+        if (!validRange(s, offset, len))
+            return false;
+        if (len == (bits + 5) / 6)
+            return decodeSortable(s, offset, len, bits);
+        if (len == bits / 4)
+            return decodeHex(s, offset, len);
+        return false;
+    }
+
+    /**
+     * Decodes bits bits from the sortable base64 chars in [offset, offset +
+     * len), where len must be the encoded length of bits. The pad bits of a
+     * partial last char must be zero, so every value has exactly one
+     * encoding.
+     *
+     * @return false on chars outside of the alphabet or non-zero pad bits
+     */
+    boolean decodeSortable(CharSequence s, int offset, int len, int bits) {
+        int tail = bits % 6;
+        int full = tail == 0 ? len : len - 1;
+        long h = 0;
+        long l = 0;
+        int invalid = 0;
+        for (int i = offset; i < offset + full; i++) {
+            int d = Base64Mod.sextet(s.charAt(i));
+            invalid |= d;
+            h = (h << 6) | (l >>> 58);
+            l = (l << 6) | d;
+        }
+        if (tail != 0) {
+            // only the top tail bits of the last char are data
+            int d = Base64Mod.sextet(s.charAt(offset + full));
+            invalid |= d;
+            if ((d & ((1 << (6 - tail)) - 1)) != 0)
+                return false;
+            h = (h << tail) | (l >>> (64 - tail));
+            l = (l << tail) | (d >>> (6 - tail));
+        }
+        high = h;
+        low = l;
+        return invalid >= 0;
+    }
+
+    /**
+     * Decodes the hex chars in [offset, offset + len), at most 32.
+     *
+     * @return false on chars that are not hex digits
+     */
+    boolean decodeHex(CharSequence s, int offset, int len) {
+        long h = 0;
+        long l = 0;
+        int invalid = 0;
+        for (int i = offset; i < offset + len; i++) {
+            int d = HexCodec.digit(s.charAt(i));
+            invalid |= d;
+            h = (h << 4) | (l >>> 60);
+            l = (l << 4) | d;
+        }
+        high = h;
+        low = l;
+        return invalid >= 0;
+    }
+
+    static boolean validRange(CharSequence s, int offset, int len) {
+        return s != null && offset >= 0 && len >= 0
+                && offset <= s.length() - len;
+    }
+}
@@ -0,0 +1,113 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Table driven lower case hex encoding and decoding of ints straight from and
+ * to chars, without intermediate strings. Decoding accepts both cases.
+ */
+public class HexCodec {
+
+    private static final char[] DIGITS = { '0', '1', '2', '3', '4', '5', '6',
+            '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+
+    /**
+     * Digit values for ascii, -1 for non-hex chars.
+     */
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        for (int i = 0; i < DECODE_TABLE.length; i++) {
+            DECODE_TABLE[i] = -1;
+        }
+        for (int i = 0; i < 10; i++) {
+            DECODE_TABLE['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            DECODE_TABLE['a' + i] = (byte) (10 + i);
+            DECODE_TABLE['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    /**
+     * Only a helper.
+     */
+    private HexCodec() {
+
+    }
+
+    /**
+     * Writes the 8 hex digits of x, big endian, starting at offset.
+     */
+    public static void encodeInt(int x, char[] target, int offset) {
+        final char[] d = DIGITS;
+        target[offset] = d[x >>> 28];
+        target[offset + 1] = d[(x >>> 24) & 0xf];
+        target[offset + 2] = d[(x >>> 20) & 0xf];
+        target[offset + 3] = d[(x >>> 16) & 0xf];
+        target[offset + 4] = d[(x >>> 12) & 0xf];
+        target[offset + 5] = d[(x >>> 8) & 0xf];
+        target[offset + 6] = d[(x >>> 4) & 0xf];
+        target[offset + 7] = d[x & 0xf];
+    }
+
+    /**
+     * Writes the 4 hex digits of the low 16 bits of x starting at offset.
+     */
+    public static void encodeShort(int x, char[] target, int offset) {
+        final char[] d = DIGITS;
+        target[offset] = d[(x >>> 12) & 0xf];
+        target[offset + 1] = d[(x >>> 8) & 0xf];
+        target[offset + 2] = d[(x >>> 4) & 0xf];
+        target[offset + 3] = d[x & 0xf];
+    }
+
+    /**
+     * Reads 8 hex digits starting at offset as a big endian int.
+     * 
+     * @throws IllegalArgumentException
+     *             if one of the chars is not a hex digit
+     */
+    public static int decodeInt(CharSequence in, int offset) {
+        int x = 0;
+        int invalid = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            int d = digit(in.charAt(i));
+            invalid |= d;
+            x = (x << 4) | d;
+        }
+        if (invalid < 0) {
+            throw new IllegalArgumentException("not hex: "
+                    + in.subSequence(offset, offset + 8));
+        }
+        return x;
+    }
+
+    /**
+     * @return whether all chars in the range are hex digits
+     */
+    public static boolean isHex(CharSequence in, int offset, int len) {
+        int invalid = 0;
+        for (int i = offset; i < offset + len; i++) {
+            invalid |= digit(in.charAt(i));
+        }
+        return invalid >= 0;
+    }
+
+    /**
+     * @return the lower case hex digit of the low 4 bits of x
+     */
+    static char digitChar(int x) {
+        return DIGITS[x & 0xf];
+    }
+
+    /**
+     * @return digit value or -1
+     */
+    static int digit(char c) {
+        return c < DECODE_TABLE.length ? DECODE_TABLE[c] : -1;
+    }
+
+}
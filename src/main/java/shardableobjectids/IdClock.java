@@ -0,0 +1,20 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Time source of id generation. Implementations are in {@link IdClocks}.
+ * 
+ * @see ShardableObjectId#setClock(IdClock)
+ * @see ShardableObjectIdWithMoPrefix#setClock(IdClock)
+ */
+public interface IdClock {
+
+    /**
+     * @return milliseconds since 1970 UTC, like
+     *         <code>System.currentTimeMillis()</code>
+     */
+    long currentTimeMillis();
+}
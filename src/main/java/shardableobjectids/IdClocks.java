@@ -0,0 +1,102 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.lang.ref.WeakReference;
+
+/**
+ * {@link IdClock} implementations.
+ */
+public final class IdClocks {
+
+    private static final IdClock SYSTEM = new IdClock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * Only a helper.
+     */
+    private IdClocks() {
+
+    }
+
+    /**
+     * <code>System.currentTimeMillis()</code>, the default.
+     */
+    public static IdClock system() {
+        return SYSTEM;
+    }
+
+    /**
+     * Always the same time, for tests and replaying.
+     */
+    public static IdClock fixed(final long millis) {
+        return new IdClock() {
+            @Override
+            public long currentTimeMillis() {
+                return millis;
+            }
+        };
+    }
+
+    /**
+     * A clock that is read from a volatile field refreshed by a daemon
+     * thread, so reading it costs no clock call. It lags the system clock by
+     * up to the period; ids only resolve seconds, so a period of some
+     * milliseconds is fine. The thread ends once the clock is no longer
+     * referenced.
+     * 
+     * @param periodMillis
+     *            time between refreshes
+     */
+    public static IdClock cached(long periodMillis) {
+        if (periodMillis < 1)
+            throw new IllegalArgumentException("period must be positive: "
+                    + periodMillis);
+        CachedClock clock = new CachedClock();
+        Thread ticker = new Thread(new Ticker(clock, periodMillis),
+                "shardableobjectids-clock");
+        ticker.setDaemon(true);
+        ticker.start();
+        return clock;
+    }
+
+    private static final class CachedClock implements IdClock {
+        volatile long millis = System.currentTimeMillis();
+
+        @Override
+        public long currentTimeMillis() {
+            return millis;
+        }
+    }
+
+    private static final class Ticker implements Runnable {
+        private final WeakReference<CachedClock> clock;
+        private final long periodMillis;
+
+        Ticker(CachedClock clock, long periodMillis) {
+            this.clock = new WeakReference<CachedClock>(clock);
+            this.periodMillis = periodMillis;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (;;) {
+                    CachedClock c = clock.get();
+                    if (c == null)
+                        return;
+                    c.millis = System.currentTimeMillis();
+                    c = null;
+                    Thread.sleep(periodMillis);
+                }
+            } catch (InterruptedException e) {
+                // clock stays at its last value
+            }
+        }
+    }
+}
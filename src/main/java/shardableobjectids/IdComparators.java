@@ -0,0 +1,204 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Compares ids in their serialized forms without creating id objects, in the
+ * same order as the ids' compareTo:
+ * <ul>
+ * <li>{@link ShardableObjectId#toByteArray()}: 12 bytes, see compare96</li>
+ * <li>{@link ShardableObjectIdWithMoPrefix#toByteArray()}: 16 bytes, see
+ * compare128</li>
+ * <li>{@link TimeUUIDUtils#toSortableBytes(UUID)}: 16 bytes, see compare128
+ * </li>
+ * <li>{@link ShardableObjectIdWithCompactMoPrefix#toByteArray()}: 14 bytes,
+ * see compare112</li>
+ * <li>the sortable base64 strings of all of them, see compareSortable</li>
+ * </ul>
+ * Bytes are compared as unsigned big endian words, 8 bytes at a time.
+ */
+public final class IdComparators {
+
+    public static final Comparator<byte[]> SHARDABLE_OBJECT_ID_BYTES = new Comparator<byte[]>() {
+        @Override
+        public int compare(byte[] a, byte[] b) {
+            return compare96(a, 0, b, 0);
+        }
+    };
+
+    public static final Comparator<byte[]> SHARDABLE_OBJECT_ID_WITH_MO_PREFIX_BYTES = new Comparator<byte[]>() {
+        @Override
+        public int compare(byte[] a, byte[] b) {
+            return compare128(a, 0, b, 0);
+        }
+    };
+
+    public static final Comparator<byte[]> SHARDABLE_OBJECT_ID_WITH_COMPACT_MO_PREFIX_BYTES = new Comparator<byte[]>() {
+        @Override
+        public int compare(byte[] a, byte[] b) {
+            return compare112(a, 0, b, 0);
+        }
+    };
+
+    public static final Comparator<byte[]> TIME_UUID_SORTABLE_BYTES = SHARDABLE_OBJECT_ID_WITH_MO_PREFIX_BYTES;
+
+    /**
+     * Orders sortable base64 strings, which is the order of their ids.
+     */
+    public static final Comparator<CharSequence> SORTABLE_STRING = new Comparator<CharSequence>() {
+        @Override
+        public int compare(CharSequence a, CharSequence b) {
+            int len = Math.min(a.length(), b.length());
+            int x = compareSortable(a, 0, b, 0, len);
+            return x != 0 ? x : a.length() - b.length();
+        }
+    };
+
+    /**
+     * Orders time uuids by time, then unsigned by clock sequence and node,
+     * the order of their sortable bytes and strings.
+     */
+    public static final Comparator<UUID> TIME_UUID = new Comparator<UUID>() {
+        @Override
+        public int compare(UUID a, UUID b) {
+            int x = Long.compareUnsigned(
+                    TimeUUIDUtils.toSortableMsb(a.getMostSignificantBits()),
+                    TimeUUIDUtils.toSortableMsb(b.getMostSignificantBits()));
+            return x != 0 ? x : Long.compareUnsigned(
+                    a.getLeastSignificantBits(), b.getLeastSignificantBits());
+        }
+    };
+
+    /**
+     * Only a helper.
+     */
+    private IdComparators() {
+
+    }
+
+    /**
+     * Compares 12 bytes at the given offsets.
+     */
+    public static int compare96(byte[] a, int aOffset, byte[] b, int bOffset) {
+        int x = Long.compareUnsigned(readLong(a, aOffset),
+                readLong(b, bOffset));
+        if (x != 0)
+            return x;
+        return Integer.compareUnsigned(ShardableObjectId._readInt(a,
+                aOffset + 8), ShardableObjectId._readInt(b, bOffset + 8));
+    }
+
+    /**
+     * Compares 14 bytes at the given offsets.
+     */
+    public static int compare112(byte[] a, int aOffset, byte[] b, int bOffset) {
+        int x = Long.compareUnsigned(readLong(a, aOffset),
+                readLong(b, bOffset));
+        if (x != 0)
+            return x;
+        // bytes 6 and 7 are equal by now, so the overlapping word decides
+        return Long.compareUnsigned(readLong(a, aOffset + 6),
+                readLong(b, bOffset + 6));
+    }
+
+    /**
+     * Compares 16 bytes at the given offsets.
+     */
+    public static int compare128(byte[] a, int aOffset, byte[] b, int bOffset) {
+        int x = Long.compareUnsigned(readLong(a, aOffset),
+                readLong(b, bOffset));
+        if (x != 0)
+            return x;
+        return Long.compareUnsigned(readLong(a, aOffset + 8),
+                readLong(b, bOffset + 8));
+    }
+
+    /**
+     * Compares 12 bytes at the given absolute indexes, ignoring the buffers'
+     * positions and byte orders.
+     */
+    public static int compare96(ByteBuffer a, int aIndex, ByteBuffer b,
+            int bIndex) {
+        int x = Long.compareUnsigned(readLong(a, aIndex), readLong(b, bIndex));
+        if (x != 0)
+            return x;
+        return Integer.compareUnsigned(readInt(a, aIndex + 8),
+                readInt(b, bIndex + 8));
+    }
+
+    /**
+     * Compares 16 bytes at the given absolute indexes, ignoring the buffers'
+     * positions and byte orders.
+     */
+    public static int compare128(ByteBuffer a, int aIndex, ByteBuffer b,
+            int bIndex) {
+        int x = Long.compareUnsigned(readLong(a, aIndex), readLong(b, bIndex));
+        if (x != 0)
+            return x;
+        return Long.compareUnsigned(readLong(a, aIndex + 8),
+                readLong(b, bIndex + 8));
+    }
+
+    /**
+     * Compares len chars of sortable base64 strings at the given offsets.
+     */
+    public static int compareSortable(CharSequence a, int aOffset,
+            CharSequence b, int bOffset, int len) {
+        for (int i = 0; i < len; i++) {
+            int x = a.charAt(aOffset + i) - b.charAt(bOffset + i);
+            if (x != 0)
+                return x;
+        }
+        return 0;
+    }
+
+    /**
+     * Compares len chars of sortable base64 strings at the given offsets.
+     */
+    public static int compareSortable(char[] a, int aOffset, char[] b,
+            int bOffset, int len) {
+        for (int i = 0; i < len; i++) {
+            int x = a[aOffset + i] - b[bOffset + i];
+            if (x != 0)
+                return x;
+        }
+        return 0;
+    }
+
+    /**
+     * Compares len ascii encoded sortable base64 chars, eg. as written by
+     * {@link ShardableObjectId#writeTo(byte[], int)}. The alphabet is ascii,
+     * so the bytes compare like the chars.
+     */
+    public static int compareSortable(byte[] a, int aOffset, byte[] b,
+            int bOffset, int len) {
+        for (int i = 0; i < len; i++) {
+            int x = a[aOffset + i] - b[bOffset + i];
+            if (x != 0)
+                return x;
+        }
+        return 0;
+    }
+
+    static long readLong(byte[] src, int offset) {
+        return ((long) ShardableObjectId._readInt(src, offset) << 32)
+                | (ShardableObjectId._readInt(src, offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private static long readLong(ByteBuffer bb, int index) {
+        long x = bb.getLong(index);
+        return bb.order() == ByteOrder.BIG_ENDIAN ? x : Long.reverseBytes(x);
+    }
+
+    private static int readInt(ByteBuffer bb, int index) {
+        int x = bb.getInt(index);
+        return bb.order() == ByteOrder.BIG_ENDIAN ? x : Integer
+                .reverseBytes(x);
+    }
+}
@@ -0,0 +1,77 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Set of {@link ShardableObjectId}s without per-entry objects: keys are held
+ * inline as ints in an open addressing table. Not thread safe, see
+ * {@link ConcurrentIdHashSet}.
+ */
+public class IdHashSet extends IdHashTable {
+
+    public IdHashSet() {
+        this(16);
+    }
+
+    public IdHashSet(int expectedSize) {
+        super(expectedSize);
+    }
+
+    /**
+     * @return <code>true</code> if the id was not yet contained
+     */
+    public boolean add(ShardableObjectId id) {
+        return add(id._machine, id._time, id._inc);
+    }
+
+    public boolean add(int machine, int time, int inc) {
+        int slot = find(machine, time, inc);
+        if (slot >= 0)
+            return false;
+        insert(-slot - 1, machine, time, inc);
+        return true;
+    }
+
+    public boolean contains(ShardableObjectId id) {
+        return contains(id._machine, id._time, id._inc);
+    }
+
+    public boolean contains(int machine, int time, int inc) {
+        return find(machine, time, inc) >= 0;
+    }
+
+    /**
+     * @return <code>true</code> if the id was contained
+     */
+    public boolean remove(ShardableObjectId id) {
+        return remove(id._machine, id._time, id._inc);
+    }
+
+    public boolean remove(int machine, int time, int inc) {
+        int slot = find(machine, time, inc);
+        if (slot < 0)
+            return false;
+        removeAt(slot);
+        return true;
+    }
+
+    @Override
+    void allocateValues(int capacity) {
+    }
+
+    @Override
+    Object values() {
+        return null;
+    }
+
+    @Override
+    void moveValue(Object fromValues, int from, int to) {
+    }
+
+    @Override
+    void clearValue(int slot) {
+    }
+
+}
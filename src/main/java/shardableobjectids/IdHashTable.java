@@ -0,0 +1,212 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Open addressing hash table with linear probing over
+ * {@link ShardableObjectId} keys stored inline as 3 ints (machine, time, inc)
+ * per slot. Base of {@link IdHashSet}, {@link IdToLongMap} and
+ * {@link IdToObjectMap}; subclasses keep their values in parallel arrays.
+ * <p>
+ * Ids of one process share the machine int and have sequential incs, so the
+ * keys are spread with the murmur3 mixing steps instead of
+ * {@link ShardableObjectId#hashCode()}.
+ * </p>
+ */
+abstract class IdHashTable {
+
+    private static final int STRIDE = 3;
+
+    /** Largest slot count whose key array still fits an int index. */
+    static final int MAX_CAPACITY = 1 << 29;
+
+    /** Largest expected size the constructor accepts. */
+    static final int MAX_EXPECTED_SIZE = MAX_CAPACITY / 4 * 3;
+
+    int[] keys;
+    boolean[] used;
+    int mask;
+    int size;
+    private int maxFill;
+
+    IdHashTable(int expectedSize) {
+        allocate(_capacityFor(expectedSize));
+    }
+
+    /**
+     * @return the power of two slot count holding expectedSize keys below the
+     *         fill limit
+     * @throws IllegalArgumentException
+     *             if expectedSize is negative or above
+     *             {@link #MAX_EXPECTED_SIZE}
+     */
+    static int _capacityFor(int expectedSize) {
+        if (expectedSize < 0 || expectedSize > MAX_EXPECTED_SIZE)
+            throw new IllegalArgumentException("size out of range: "
+                    + expectedSize);
+        int capacity = 4;
+        while (capacity / 4 * 3 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity * STRIDE];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        maxFill = capacity / 4 * 3;
+        allocateValues(capacity);
+    }
+
+    abstract void allocateValues(int capacity);
+
+    /**
+     * @return the current value array, handed back to
+     *         {@link #moveValue(Object, int, int)} while rehashing
+     */
+    abstract Object values();
+
+    abstract void moveValue(Object fromValues, int from, int to);
+
+    abstract void clearValue(int slot);
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i <= mask; i++) {
+            if (used[i]) {
+                used[i] = false;
+                clearValue(i);
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * murmur3 32 bit over the 12 key bytes with seed 0.
+     */
+    static int hash(int machine, int time, int inc) {
+        int h = mixH(0, mixK(machine));
+        h = mixH(h, mixK(time));
+        h = mixH(h, mixK(inc));
+        return fmix(h ^ 12);
+    }
+
+    /**
+     * murmur3 32 bit over the 16 key bytes of a month prefixed id with seed 0.
+     */
+    static int hash(int month, int machine, int time, int inc) {
+        int h = mixH(0, mixK(month));
+        h = mixH(h, mixK(machine));
+        h = mixH(h, mixK(time));
+        h = mixH(h, mixK(inc));
+        return fmix(h ^ 16);
+    }
+
+    private static int mixK(int k) {
+        k *= 0xcc9e2d51;
+        k = Integer.rotateLeft(k, 15);
+        return k * 0x1b873593;
+    }
+
+    private static int mixH(int h, int k) {
+        h ^= k;
+        h = Integer.rotateLeft(h, 13);
+        return h * 5 + 0xe6546b64;
+    }
+
+    static int fmix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * @return slot of the key or <code>-(free slot) - 1</code>
+     */
+    int find(int machine, int time, int inc) {
+        int i = hash(machine, time, inc) & mask;
+        while (used[i]) {
+            int o = i * STRIDE;
+            if (keys[o + 2] == inc && keys[o + 1] == time
+                    && keys[o] == machine)
+                return i;
+            i = (i + 1) & mask;
+        }
+        return -i - 1;
+    }
+
+    /**
+     * Stores the key in a free slot found by {@link #find(int, int, int)}.
+     * 
+     * @return the slot holding the key, may differ from the passed one after
+     *         growing
+     */
+    int insert(int freeSlot, int machine, int time, int inc) {
+        if (size >= maxFill) {
+            grow();
+            freeSlot = -find(machine, time, inc) - 1;
+        }
+        int o = freeSlot * STRIDE;
+        keys[o] = machine;
+        keys[o + 1] = time;
+        keys[o + 2] = inc;
+        used[freeSlot] = true;
+        size++;
+        return freeSlot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        Object oldValues = values();
+        if (oldUsed.length >= MAX_CAPACITY)
+            throw new IllegalStateException("table full");
+        allocate(oldUsed.length << 1);
+        for (int from = 0; from < oldUsed.length; from++) {
+            if (oldUsed[from]) {
+                int o = from * STRIDE;
+                int to = -find(oldKeys[o], oldKeys[o + 1], oldKeys[o + 2]) - 1;
+                System.arraycopy(oldKeys, o, keys, to * STRIDE, STRIDE);
+                used[to] = true;
+                moveValue(oldValues, from, to);
+            }
+        }
+    }
+
+    /**
+     * Removes the key at slot, shifting back later entries of its probe
+     * sequence so no tombstones are needed.
+     */
+    void removeAt(int slot) {
+        int gap = slot;
+        int i = (slot + 1) & mask;
+        Object values = values();
+        while (used[i]) {
+            int o = i * STRIDE;
+            int home = hash(keys[o], keys[o + 1], keys[o + 2]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                System.arraycopy(keys, o, keys, gap * STRIDE, STRIDE);
+                moveValue(values, i, gap);
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        used[gap] = false;
+        clearValue(gap);
+        size--;
+    }
+
+}
@@ -0,0 +1,112 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Map from {@link ShardableObjectId} to primitive long without per-entry
+ * objects: keys are held inline as ints in an open addressing table, values
+ * in a parallel <code>long[]</code>. Not thread safe.
+ */
+public class IdToLongMap extends IdHashTable {
+
+    private long[] values;
+
+    public IdToLongMap() {
+        this(16);
+    }
+
+    public IdToLongMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    /**
+     * @return the previous value or <code>noValue</code>
+     */
+    public long put(ShardableObjectId id, long value, long noValue) {
+        return put(id._machine, id._time, id._inc, value, noValue);
+    }
+
+    public long put(int machine, int time, int inc, long value, long noValue) {
+        int slot = find(machine, time, inc);
+        if (slot >= 0) {
+            long previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        slot = insert(-slot - 1, machine, time, inc);
+        values[slot] = value;
+        return noValue;
+    }
+
+    /**
+     * Adds delta to the value of the id, starting from 0 for new ids.
+     * 
+     * @return the new value
+     */
+    public long addTo(ShardableObjectId id, long delta) {
+        return addTo(id._machine, id._time, id._inc, delta);
+    }
+
+    public long addTo(int machine, int time, int inc, long delta) {
+        int slot = find(machine, time, inc);
+        if (slot < 0) {
+            slot = insert(-slot - 1, machine, time, inc);
+            values[slot] = 0;
+        }
+        return values[slot] += delta;
+    }
+
+    /**
+     * @return the value or <code>noValue</code> if the id is not contained
+     */
+    public long get(ShardableObjectId id, long noValue) {
+        return get(id._machine, id._time, id._inc, noValue);
+    }
+
+    public long get(int machine, int time, int inc, long noValue) {
+        int slot = find(machine, time, inc);
+        return slot >= 0 ? values[slot] : noValue;
+    }
+
+    public boolean containsKey(ShardableObjectId id) {
+        return find(id._machine, id._time, id._inc) >= 0;
+    }
+
+    /**
+     * @return the removed value or <code>noValue</code>
+     */
+    public long remove(ShardableObjectId id, long noValue) {
+        return remove(id._machine, id._time, id._inc, noValue);
+    }
+
+    public long remove(int machine, int time, int inc, long noValue) {
+        int slot = find(machine, time, inc);
+        if (slot < 0)
+            return noValue;
+        long previous = values[slot];
+        removeAt(slot);
+        return previous;
+    }
+
+    @Override
+    void allocateValues(int capacity) {
+        values = new long[capacity];
+    }
+
+    @Override
+    Object values() {
+        return values;
+    }
+
+    @Override
+    void moveValue(Object fromValues, int from, int to) {
+        values[to] = ((long[]) fromValues)[from];
+    }
+
+    @Override
+    void clearValue(int slot) {
+    }
+
+}
@@ -0,0 +1,101 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Map from {@link ShardableObjectId} to objects without per-entry objects:
+ * keys are held inline as ints in an open addressing table, values in a
+ * parallel array. Not thread safe. <code>null</code> values are not
+ * supported.
+ */
+public class IdToObjectMap<V> extends IdHashTable {
+
+    private Object[] values;
+
+    public IdToObjectMap() {
+        this(16);
+    }
+
+    public IdToObjectMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    /**
+     * @return the previous value or <code>null</code>
+     */
+    public V put(ShardableObjectId id, V value) {
+        return put(id._machine, id._time, id._inc, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int machine, int time, int inc, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("null values not supported");
+        int slot = find(machine, time, inc);
+        if (slot >= 0) {
+            V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        slot = insert(-slot - 1, machine, time, inc);
+        values[slot] = value;
+        return null;
+    }
+
+    /**
+     * @return the value or <code>null</code> if the id is not contained
+     */
+    public V get(ShardableObjectId id) {
+        return get(id._machine, id._time, id._inc);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int machine, int time, int inc) {
+        int slot = find(machine, time, inc);
+        return slot >= 0 ? (V) values[slot] : null;
+    }
+
+    public boolean containsKey(ShardableObjectId id) {
+        return find(id._machine, id._time, id._inc) >= 0;
+    }
+
+    /**
+     * @return the removed value or <code>null</code>
+     */
+    public V remove(ShardableObjectId id) {
+        return remove(id._machine, id._time, id._inc);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int machine, int time, int inc) {
+        int slot = find(machine, time, inc);
+        if (slot < 0)
+            return null;
+        V previous = (V) values[slot];
+        removeAt(slot);
+        return previous;
+    }
+
+    @Override
+    void allocateValues(int capacity) {
+        values = new Object[capacity];
+    }
+
+    @Override
+    Object values() {
+        return values;
+    }
+
+    @Override
+    void moveValue(Object fromValues, int from, int to) {
+        values[to] = ((Object[]) fromValues)[from];
+    }
+
+    @Override
+    void clearValue(int slot) {
+        values[slot] = null;
+    }
+
+}
@@ -0,0 +1,78 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The inc counter of an id type. By default every inc is taken from one
+ * shared AtomicInteger. With a block size above 1 each thread leases blocks of
+ * incs from the shared counter and hands them out without further
+ * synchronization, so threads stop contending on one cache line.
+ * <p>
+ * Leased blocks never overlap, so ids stay unique. Incs of different threads
+ * interleave by block instead of by call, and unused parts of a thread's last
+ * block are skipped.
+ */
+final class IncCounter {
+
+    private final AtomicInteger _next = new AtomicInteger(
+            new Random().nextInt());
+
+    private volatile int _blockSize = 1;
+
+    /**
+     * Per thread: the next inc of the leased block and how many are left.
+     */
+    private final ThreadLocal<int[]> _block = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[2];
+        }
+    };
+
+    int getBlockSize() {
+        return _blockSize;
+    }
+
+    void setBlockSize(int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("block size must be positive: "
+                    + blockSize);
+        _blockSize = blockSize;
+    }
+
+    /**
+     * The next value of the shared counter, not counting incs still unused in
+     * leased blocks.
+     */
+    int current() {
+        return _next.get();
+    }
+
+    int next() {
+        return next(1);
+    }
+
+    /**
+     * Reserves n consecutive incs.
+     *
+     * @return the first of them
+     */
+    int next(int n) {
+        int blockSize = _blockSize;
+        if (blockSize == 1 || n >= blockSize)
+            return _next.getAndAdd(n);
+        int[] block = _block.get();
+        if (block[1] < n) {
+            block[0] = _next.getAndAdd(blockSize);
+            block[1] = blockSize;
+        }
+        int inc = block[0];
+        block[0] += n;
+        block[1] -= n;
+        return inc;
+    }
+}
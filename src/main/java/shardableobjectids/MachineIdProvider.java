@@ -0,0 +1,18 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Source of the machine id of generated shardable object ids. Implementations
+ * for the usual sources are in {@link MachineIdProviders}; the one in use is
+ * asked once, on the first id generated.
+ */
+public interface MachineIdProvider {
+
+    /**
+     * @return the id identifying this machine / process / class loader
+     */
+    int getMachineId();
+}
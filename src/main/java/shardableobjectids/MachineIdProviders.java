@@ -0,0 +1,200 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.bson.types.ObjectId;
+
+/**
+ * {@link MachineIdProvider} implementations and the machine id shared by all
+ * id types.
+ * <p>
+ * The id is resolved lazily, on first use, by the provider set with
+ * {@link #setProvider(MachineIdProvider)}. The default provider reads the
+ * system property {@value #PROPERTY} or the environment variable
+ * {@value #ENV} and only falls back to {@link #bson()}, whose network
+ * interface scan can take long on first use.
+ */
+public final class MachineIdProviders {
+
+    public static final String PROPERTY = "shardableobjectids.machineId";
+
+    public static final String ENV = "SHARDABLEOBJECTIDS_MACHINE_ID";
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private static volatile MachineIdProvider _provider = fromProperty(
+            PROPERTY, ENV, bson());
+
+    private static volatile boolean _resolved;
+
+    private static int _machineId;
+
+    /**
+     * Only a helper.
+     */
+    private MachineIdProviders() {
+
+    }
+
+    /**
+     * The machine id of new ids, asks the provider on the first call only.
+     */
+    public static int getMachineId() {
+        if (!_resolved) {
+            synchronized (MachineIdProviders.class) {
+                if (!_resolved) {
+                    _machineId = _provider.getMachineId();
+                    _resolved = true;
+                }
+            }
+        }
+        return _machineId;
+    }
+
+    /**
+     * Sets the provider asked for the machine id. Call before generating ids;
+     * a later call makes ids generated afterwards use the new provider's id.
+     */
+    public static synchronized void setProvider(MachineIdProvider provider) {
+        if (provider == null)
+            throw new IllegalArgumentException("provider is null");
+        _provider = provider;
+        _resolved = false;
+    }
+
+    public static MachineIdProvider getProvider() {
+        return _provider;
+    }
+
+    /**
+     * A fixed machine id, eg. from configuration.
+     */
+    public static MachineIdProvider explicit(final int machineId) {
+        return new MachineIdProvider() {
+            @Override
+            public int getMachineId() {
+                return machineId;
+            }
+        };
+    }
+
+    /**
+     * The machine id of the system property, else of the environment
+     * variable, else of the fallback. Values are decimal or 0x prefixed hex.
+     * 
+     * @param property
+     *            system property name, may be null
+     * @param env
+     *            environment variable name, may be null
+     * @throws IllegalArgumentException
+     *             from getMachineId() if a value is not a number
+     */
+    public static MachineIdProvider fromProperty(final String property,
+            final String env, final MachineIdProvider fallback) {
+        return new MachineIdProvider() {
+            @Override
+            public int getMachineId() {
+                String value = property == null ? null : System
+                        .getProperty(property);
+                if (value == null && env != null)
+                    value = System.getenv(env);
+                return value == null ? fallback.getMachineId() : parse(value);
+            }
+        };
+    }
+
+    /**
+     * The machine id stored in a file. If the file does not exist the id of
+     * the fallback is written to it, so a restarted process skips the
+     * fallback. The content is written to a temporary file next to it first
+     * and then linked into place, so readers never see a partial file; when
+     * two first starts race, the loser keeps its fallback id uncached. An
+     * empty file counts as missing.
+     * <p>
+     * Processes running concurrently must not share the file, they would get
+     * the same machine id and could generate the same ids.
+     * 
+     * @throws IllegalArgumentException
+     *             from getMachineId() if the file content is not a number
+     */
+    public static MachineIdProvider cachedFile(final File file,
+            final MachineIdProvider fallback) {
+        return new MachineIdProvider() {
+            @Override
+            public int getMachineId() {
+                if (file.isFile()) {
+                    try {
+                        String content = new String(Files.readAllBytes(file
+                                .toPath()), ASCII);
+                        if (!content.trim().isEmpty())
+                            return parse(content);
+                    } catch (IOException e) {
+                        // unreadable, same as missing
+                    }
+                }
+                int machineId = fallback.getMachineId();
+                publish(file, Integer.toString(machineId));
+                return machineId;
+            }
+        };
+    }
+
+    /**
+     * Creates file with the content unless it exists, atomically. Failures
+     * leave the value uncached, the next start asks the fallback again.
+     */
+    private static void publish(File file, String content) {
+        Path target = file.getAbsoluteFile().toPath();
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(target.getParent(), target
+                    .getFileName().toString(), ".tmp");
+            Files.write(tmp, content.getBytes(ASCII));
+            Files.createLink(target, tmp);
+        } catch (IOException e) {
+            // includes FileAlreadyExistsException from a racing start
+        } catch (UnsupportedOperationException e) {
+            // no hard links on this file system
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    // a stray temporary file does no harm
+                }
+            }
+        }
+    }
+
+    /**
+     * The machine id of <code>org.bson.types.ObjectId</code>, derived from the
+     * network interfaces, process id and class loader.
+     */
+    public static MachineIdProvider bson() {
+        return new MachineIdProvider() {
+            @Override
+            public int getMachineId() {
+                return ObjectId.getGenMachineId();
+            }
+        };
+    }
+
+    static int parse(String value) {
+        String trimmed = value.trim();
+        try {
+            if (trimmed.startsWith("0x") || trimmed.startsWith("0X"))
+                return (int) Long.parseLong(trimmed.substring(2), 16);
+            return Integer.parseInt(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid machine id [" + value
+                    + "]", e);
+        }
+    }
+}
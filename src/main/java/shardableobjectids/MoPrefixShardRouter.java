@@ -0,0 +1,80 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * {@link ShardRouter} for {@link ShardableObjectIdWithMoPrefix}es, with the
+ * same jump consistent hash and range table routing. A separate type, so a
+ * router can only be asked for the id type it was built for.
+ */
+public abstract class MoPrefixShardRouter {
+
+    /**
+     * @return the number of partitions, routes are in [0, partitions)
+     */
+    public abstract int partitions();
+
+    public abstract int route(int month, int machine, int time, int inc);
+
+    public int route(ShardableObjectIdWithMoPrefix id) {
+        return route(id._month, id._machine, id._time, id._inc);
+    }
+
+    /**
+     * Jump consistent hash routing over a murmur3 hash of the id bytes.
+     * 
+     * @throws IllegalArgumentException
+     *             if partitions is less than 1
+     */
+    public static MoPrefixShardRouter jumpConsistent(final int partitions) {
+        ShardRouter._checkPartitions(partitions);
+        return new MoPrefixShardRouter() {
+            @Override
+            public int partitions() {
+                return partitions;
+            }
+
+            @Override
+            public int route(int month, int machine, int time, int inc) {
+                return ShardRouter.jumpConsistentHash(
+                        IdHashTable.hash(month, machine, time, inc)
+                                & 0xFFFFFFFFL, partitions);
+            }
+        };
+    }
+
+    /**
+     * Range routing, see {@link ShardRouter#rangeTable(ShardableObjectIdArray)}.
+     * 
+     * @param splitPoints
+     *            strictly increasing, copied
+     * @throws IllegalArgumentException
+     *             if the split points are not strictly increasing
+     */
+    public static MoPrefixShardRouter rangeTable(
+            ShardableObjectIdWithMoPrefixArray splitPoints) {
+        final ShardableObjectIdWithMoPrefixArray copy = new ShardableObjectIdWithMoPrefixArray(
+                splitPoints.size());
+        for (int i = 0; i < splitPoints.size(); i++) {
+            copy.add(splitPoints.getMonth(i), splitPoints.getMachine(i),
+                    splitPoints.getTimeSecond(i), splitPoints.getInc(i));
+            if (i > 0 && copy.compare(i - 1, i) >= 0)
+                throw new IllegalArgumentException(
+                        "split points not strictly increasing at " + i);
+        }
+        return new MoPrefixShardRouter() {
+            @Override
+            public int partitions() {
+                return copy.size() + 1;
+            }
+
+            @Override
+            public int route(int month, int machine, int time, int inc) {
+                int i = copy.binarySearch(month, machine, time, inc);
+                return i >= 0 ? i + 1 : -i - 1;
+            }
+        };
+    }
+}
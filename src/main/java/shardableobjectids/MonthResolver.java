@@ -0,0 +1,91 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Maps epoch seconds to the yyyymm month prefix of
+ * {@link ShardableObjectIdWithMoPrefix} in a fixed time zone. The [start, end)
+ * second window of the current month is cached, so resolving the time of new
+ * ids only does date arithmetic and allocates on the first call after a month
+ * boundary. Other months are computed without caching, so lookups of
+ * historic or arbitrary times never evict the current window.
+ */
+public final class MonthResolver {
+
+    public static final MonthResolver UTC = new MonthResolver(ZoneOffset.UTC);
+
+    private final ZoneId _zone;
+
+    private volatile Window _window;
+
+    /**
+     * Immutable, published as a whole so readers never see a torn window.
+     */
+    private static final class Window {
+        final long start;
+        final long end;
+        final int month;
+
+        Window(long start, long end, int month) {
+            this.start = start;
+            this.end = end;
+            this.month = month;
+        }
+    }
+
+    public MonthResolver(ZoneId zone) {
+        if (zone == null)
+            throw new IllegalArgumentException("zone is null");
+        _zone = zone;
+        _window = window(System.currentTimeMillis() / 1000);
+    }
+
+    public ZoneId getZone() {
+        return _zone;
+    }
+
+    /**
+     * @return the month as yyyymm, eg. 201203
+     */
+    public int monthOfSecond(long epochSecond) {
+        Window window = _window;
+        if (epochSecond >= window.start && epochSecond < window.end)
+            return window.month;
+        window = window(epochSecond);
+        long now = System.currentTimeMillis() / 1000;
+        if (now >= window.start && now < window.end)
+            _window = window;
+        return window.month;
+    }
+
+    /**
+     * @return whether the second falls into the cached window
+     */
+    boolean _isCached(long epochSecond) {
+        Window window = _window;
+        return epochSecond >= window.start && epochSecond < window.end;
+    }
+
+    /**
+     * @return the month as yyyymm, eg. 201203
+     */
+    public int monthOfMillis(long epochMillis) {
+        return monthOfSecond(Math.floorDiv(epochMillis, 1000));
+    }
+
+    private Window window(long epochSecond) {
+        ZonedDateTime time = Instant.ofEpochSecond(epochSecond).atZone(_zone);
+        LocalDate first = time.toLocalDate().withDayOfMonth(1);
+        long start = first.atStartOfDay(_zone).toEpochSecond();
+        long end = first.plusMonths(1).atStartOfDay(_zone).toEpochSecond();
+        return new Window(start, end, time.getYear() * 100
+                + time.getMonthValue());
+    }
+}
@@ -0,0 +1,171 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.util.Arrays;
+
+/**
+ * Growable array of ids packed as a fixed number of ints each, in the order
+ * the ids compare (unsigned, most significant int first). Base of
+ * {@link ShardableObjectIdArray} and
+ * {@link ShardableObjectIdWithMoPrefixArray}.
+ */
+abstract class PackedIdArray {
+
+    /** ints per id */
+    final int stride;
+
+    int[] data;
+    int size;
+
+    private final int[] pivot;
+
+    PackedIdArray(int stride, int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("negative capacity: "
+                    + initialCapacity);
+        this.stride = stride;
+        this.data = new int[initialCapacity * stride];
+        this.pivot = new int[stride];
+    }
+
+    /**
+     * @return number of ids
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        long needed = (long) minCapacity * stride;
+        if (needed > data.length) {
+            if (needed > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("too many ids: "
+                        + minCapacity);
+            long grown = data.length + (data.length >> 1) + stride;
+            data = Arrays.copyOf(data,
+                    (int) Math.min(Integer.MAX_VALUE, Math.max(grown, needed)));
+        }
+    }
+
+    /**
+     * Releases unused capacity.
+     */
+    public void trimToSize() {
+        if (data.length > size * stride)
+            data = Arrays.copyOf(data, size * stride);
+    }
+
+    /**
+     * @return offset in {@link #data} of a new id at the end
+     */
+    int append() {
+        ensureCapacity(size + 1);
+        return size++ * stride;
+    }
+
+    /**
+     * @return count times width, the length of count encoded ids
+     * @throws IllegalArgumentException
+     *             if that does not fit an array
+     */
+    static int _length(int count, int width) {
+        long len = (long) count * width;
+        if (len > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("too many ids: " + count
+                    + " of " + width + " each");
+        return (int) len;
+    }
+
+    int offset(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index " + index + ", size "
+                    + size);
+        return index * stride;
+    }
+
+    /**
+     * Compares the ids at the given indexes in their natural order.
+     */
+    public int compare(int i, int j) {
+        return compareAt(data, offset(i), data, offset(j));
+    }
+
+    int compareAt(int[] a, int aOffset, int[] b, int bOffset) {
+        for (int k = 0; k < stride; k++) {
+            int x = a[aOffset + k];
+            int y = b[bOffset + k];
+            if (x != y)
+                return compareUnsigned(x, y);
+        }
+        return 0;
+    }
+
+    static int compareUnsigned(int x, int y) {
+        if (x == y)
+            return 0;
+        return (x ^ Integer.MIN_VALUE) < (y ^ Integer.MIN_VALUE) ? -1 : 1;
+    }
+
+    void swap(int i, int j) {
+        int a = i * stride;
+        int b = j * stride;
+        for (int k = 0; k < stride; k++) {
+            int t = data[a + k];
+            data[a + k] = data[b + k];
+            data[b + k] = t;
+        }
+    }
+
+    /**
+     * Sorts in place in the natural order of the ids.
+     */
+    public void sort() {
+        sort(0, size - 1);
+    }
+
+    private void sort(int lo, int hi) {
+        while (hi - lo > 16) {
+            // Hoare partition, copes well with duplicates
+            System.arraycopy(data, ((lo + hi) >>> 1) * stride, pivot, 0,
+                    stride);
+            int i = lo - 1;
+            int j = hi + 1;
+            while (true) {
+                do {
+                    i++;
+                } while (compareAt(data, i * stride, pivot, 0) < 0);
+                do {
+                    j--;
+                } while (compareAt(data, j * stride, pivot, 0) > 0);
+                if (i >= j)
+                    break;
+                swap(i, j);
+            }
+            // recurse into the smaller part to bound stack depth
+            if (j - lo < hi - j) {
+                sort(lo, j);
+                lo = j + 1;
+            } else {
+                sort(j + 1, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo
+                    && compareAt(data, (j - 1) * stride, data, j * stride) > 0; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Maps {@link ShardableObjectId}s to one of a fixed number of partitions on
+ * the client, eg. to bucket bulk writes per shard or to pick a local cache
+ * partition. {@link MoPrefixShardRouter} does the same for
+ * {@link ShardableObjectIdWithMoPrefix}es.
+ * <ul>
+ * <li>{@link #jumpConsistent(int)}: hashes the id and spreads it with jump
+ * consistent hash, so growing from n to n + 1 partitions moves only 1/(n + 1)
+ * of the ids.</li>
+ * <li>{@link #rangeTable(ShardableObjectIdArray)}: sorted split points like
+ * Mongo chunk boundaries, in the ids' sortable byte order. A binary search
+ * over the packed split points finds the partition.</li>
+ * </ul>
+ * Routers are immutable and thread safe.
+ */
+public abstract class ShardRouter {
+
+    /**
+     * @return the number of partitions, routes are in [0, partitions)
+     */
+    public abstract int partitions();
+
+    public abstract int route(int machine, int time, int inc);
+
+    public int route(ShardableObjectId id) {
+        return route(id._machine, id._time, id._inc);
+    }
+
+    /**
+     * Jump consistent hash routing over a murmur3 hash of the id bytes.
+     * 
+     * @throws IllegalArgumentException
+     *             if partitions is less than 1
+     */
+    public static ShardRouter jumpConsistent(final int partitions) {
+        _checkPartitions(partitions);
+        return new ShardRouter() {
+            @Override
+            public int partitions() {
+                return partitions;
+            }
+
+            @Override
+            public int route(int machine, int time, int inc) {
+                return jumpConsistentHash(
+                        IdHashTable.hash(machine, time, inc) & 0xFFFFFFFFL,
+                        partitions);
+            }
+        };
+    }
+
+    /**
+     * Range routing. Ids below the first split point go to partition 0, ids
+     * from split point i on to partition i + 1, so there is one partition
+     * more than split points.
+     * 
+     * @param splitPoints
+     *            strictly increasing, copied
+     * @throws IllegalArgumentException
+     *             if the split points are not strictly increasing
+     */
+    public static ShardRouter rangeTable(ShardableObjectIdArray splitPoints) {
+        final ShardableObjectIdArray copy = new ShardableObjectIdArray(
+                splitPoints.size());
+        for (int i = 0; i < splitPoints.size(); i++) {
+            copy.add(splitPoints.getMachine(i), splitPoints.getTimeSecond(i),
+                    splitPoints.getInc(i));
+            if (i > 0 && copy.compare(i - 1, i) >= 0)
+                throw new IllegalArgumentException(
+                        "split points not strictly increasing at " + i);
+        }
+        return new ShardRouter() {
+            @Override
+            public int partitions() {
+                return copy.size() + 1;
+            }
+
+            @Override
+            public int route(int machine, int time, int inc) {
+                int i = copy.binarySearch(machine, time, inc);
+                return i >= 0 ? i + 1 : -i - 1;
+            }
+        };
+    }
+
+    static void _checkPartitions(int partitions) {
+        if (partitions < 1)
+            throw new IllegalArgumentException("need at least 1 partition: "
+                    + partitions);
+    }
+
+    /**
+     * Lamping and Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm".
+     */
+    static int jumpConsistentHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -19,12 +19,12 @@ package shardableobjectids;
  *   limitations under the License.
  */
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Date;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.codec.binary.Base64;
-import org.bson.types.ObjectId;
 
 /**
  * A globally unique identifier for objects.
@@ -56,6 +56,67 @@ public class ShardableObjectId implements Comparable<ShardableObjectId>,
         return new ShardableObjectId();
     }
 
+    /**
+     * Receives generated ids field by field, see
+     * {@link ShardableObjectId#generate(int, IdSink)}.
+     */
+    public interface IdSink {
+        void accept(int machine, int time, int inc);
+    }
+
+    /**
+     * Generates n new ids in one go: reserves n increments with a single
+     * atomic add and reads the clock and machine id once for the batch.
+     * 
+     * @param sink
+     *            receives the ids in increasing inc order, eg. a
+     *            {@link ShardableObjectIdArray}
+     * @return the sink
+     */
+    public static <S extends IdSink> S generate(int n, S sink) {
+        if (n < 0)
+            throw new IllegalArgumentException("negative count: " + n);
+        int time = (int) (_clock.currentTimeMillis() / 1000);
+        int machine = getGenMachineId();
+        int spreadBits = _spreadBits;
+        int inc = _nextInc.next(n);
+        for (int i = 0; i < n; i++) {
+            sink.accept(_spread(machine, spreadBits, inc + i), time, inc + i);
+        }
+        return sink;
+    }
+
+    /**
+     * Same as {@link #generate(int, IdSink)}, writing the 12 bytes of
+     * {@link #toByteArray()} per id at the buffer's position.
+     * 
+     * @throws IllegalArgumentException
+     *             if less than 12 * n bytes remain
+     */
+    public static ByteBuffer generate(int n, ByteBuffer target) {
+        if (n < 0 || target.remaining() / 12 < n)
+            throw new IllegalArgumentException("need " + 12L * n + " bytes");
+        int time = (int) (_clock.currentTimeMillis() / 1000);
+        int machine = getGenMachineId();
+        int spreadBits = _spreadBits;
+        int inc = _nextInc.next(n);
+        if (target.order() == ByteOrder.LITTLE_ENDIAN) {
+            time = Integer.reverseBytes(time);
+            for (int i = 0; i < n; i++) {
+                target.putInt(
+                        Integer.reverseBytes(_spread(machine, spreadBits, inc
+                                + i))).putInt(time)
+                        .putInt(Integer.reverseBytes(inc + i));
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                target.putInt(_spread(machine, spreadBits, inc + i))
+                        .putInt(time).putInt(inc + i);
+            }
+        }
+        return target;
+    }
+
     /**
      * Checks if a string could be an <code>ShardableObjectId</code>.
      * 
@@ -67,15 +128,7 @@ public class ShardableObjectId implements Comparable<ShardableObjectId>,
 
         final int len = s.length();
         if (len == 24) {
-            for (int i = 0; i < len; i++) {
-                char c = s.charAt(i);
-                if (c >= '0' && c <= '9')
-                    continue;
-                if (c >= 'a' && c <= 'f')
-                    continue;
-                if (c >= 'A' && c <= 'F')
-                    continue;
-
+            if (!HexCodec.isHex(s, 0, len)) {
                 return false;
             }
         } else if (len == 16) {
@@ -109,13 +162,32 @@ public class ShardableObjectId implements Comparable<ShardableObjectId>,
 
         if (o instanceof String) {
             String s = o.toString();
-            if (isValid(s))
-                return new ShardableObjectId(s);
+            return tryParse(s, 0, s.length());
         }
 
         return null;
     }
 
+    /**
+     * Parses the sortable base64 or mongod hex form in a single pass over the
+     * input, without exceptions for malformed input.
+     * 
+     * @return the id or <code>null</code> if the range is not a valid id
+     */
+    public static ShardableObjectId tryParse(CharSequence s, int offset,
+            int len) {
+        // high holds machine
+        FixedWidthDecoder d = new FixedWidthDecoder();
+        if (!d.decode(s, offset, len, 96))
+            return null;
+        return new ShardableObjectId((int) (d.low >>> 32), (int) d.high,
+                (int) d.low);
+    }
+
+    public static ShardableObjectId tryParse(CharSequence s) {
+        return s == null ? null : tryParse(s, 0, s.length());
+    }
+
     /*
      * somehow didn't work for me: private static Boolean staticLock = new
      * Boolean(true); private static boolean registeredBSONCodecs = false;
@@ -130,7 +202,7 @@ public class ShardableObjectId implements Comparable<ShardableObjectId>,
      */
 
     public ShardableObjectId(Date time) {
-        this(time, getGenMachineId(), _nextInc.getAndIncrement());
+        this(time, _nextInc.next());
     }
 
     public ShardableObjectId(Date time, int inc) {
@@ -162,24 +234,24 @@ public class ShardableObjectId implements Comparable<ShardableObjectId>,
             throw new IllegalArgumentException("invalid ShardableObjectId ["
                     + s + "]");
 
-        if (babble)
-            s = babbleToMongod(s);
-
-        byte b[];
         if (s.length() == 16) {
-            b = Base64Mod.decode(s);
+            if (babble)
+                throw new IllegalArgumentException(
+                        "babble needs the hex form [" + s + "]");
+            long high = Base64Mod.decodeHigh64(s, 0);
+            _machine = (int) (high >>> 32);
+            _time = (int) high;
+            _inc = Base64Mod.decode96Low32(s, 0);
+        } else if (babble) {
+            // babble reverses the bytes of machine+time and of inc
+            _machine = Integer.reverseBytes(HexCodec.decodeInt(s, 8));
+            _time = Integer.reverseBytes(HexCodec.decodeInt(s, 0));
+            _inc = Integer.reverseBytes(HexCodec.decodeInt(s, 16));
         } else {
-            b = new byte[12];
-            for (int i = 0; i < b.length; i++) {
-                b[i] = (byte) Integer.parseInt(s.substring(i * 2, i * 2 + 2),
-                        16);
-            }
+            _machine = HexCodec.decodeInt(s, 0);
+            _time = HexCodec.decodeInt(s, 8);
+            _inc = HexCodec.decodeInt(s, 16);
         }
-
-        ByteBuffer bb = ByteBuffer.wrap(b);
-        _machine = bb.getInt();
-        _time = bb.getInt();
-        _inc = bb.getInt();
         _new = false;
     }
 
@@ -195,12 +267,54 @@ public class ShardableObjectId implements Comparable<ShardableObjectId>,
     }
 
     public ShardableObjectId(byte[] b) {
+        this(checkLength(b), 0);
+    }
+
+    /**
+     * Reads the 12 bytes of {@link #toByteArray()} starting at offset, eg.
+     * out of a page of packed ids.
+     * 
+     * @throws IllegalArgumentException
+     *             if less than 12 bytes are available from offset
+     */
+    public ShardableObjectId(byte[] src, int offset) {
+        if (offset < 0 || src.length - offset < 12)
+            throw new IllegalArgumentException("need 12 bytes");
+        _machine = _readInt(src, offset);
+        _time = _readInt(src, offset + 4);
+        _inc = _readInt(src, offset + 8);
+        _new = false;
+    }
+
+    private static byte[] checkLength(byte[] b) {
         if (b.length != 12)
             throw new IllegalArgumentException("need 12 bytes");
-        ByteBuffer bb = ByteBuffer.wrap(b);
-        _machine = bb.getInt();
-        _time = bb.getInt();
-        _inc = bb.getInt();
+        return b;
+    }
+
+    /**
+     * Reads the 12 bytes of {@link #toByteArray()} from the buffer's position
+     * without copying, advancing the position. Works on heap and direct
+     * buffers. The bytes are read big endian regardless of the buffer's byte
+     * order.
+     * 
+     * @throws IllegalArgumentException
+     *             if less than 12 bytes remain
+     */
+    public ShardableObjectId(ByteBuffer bb) {
+        if (bb.remaining() < 12)
+            throw new IllegalArgumentException("need 12 bytes");
+        int machine = bb.getInt();
+        int time = bb.getInt();
+        int inc = bb.getInt();
+        if (bb.order() == ByteOrder.LITTLE_ENDIAN) {
+            machine = Integer.reverseBytes(machine);
+            time = Integer.reverseBytes(time);
+            inc = Integer.reverseBytes(inc);
+        }
+        _machine = machine;
+        _time = time;
+        _inc = inc;
         _new = false;
     }
 
@@ -225,10 +339,10 @@ public class ShardableObjectId implements Comparable<ShardableObjectId>,
      * Create a new shardable object id.
      */
     public ShardableObjectId() {
-        long currentTimeMillis = System.currentTimeMillis();
+        long currentTimeMillis = _clock.currentTimeMillis();
         _time = (int) (currentTimeMillis / 1000);
-        _machine = getGenMachineId();
-        _inc = _nextInc.getAndIncrement();
+        _inc = _nextInc.next();
+        _machine = _spread(getGenMachineId(), _spreadBits, _inc);
         _new = true;
     }
 
@@ -255,23 +369,19 @@ public class ShardableObjectId implements Comparable<ShardableObjectId>,
     }
 
     public String toStringBabble() {
-        return babbleToMongod(toStringMongod());
+        char[] buf = new char[24];
+        HexCodec.encodeInt(Integer.reverseBytes(_time), buf, 0);
+        HexCodec.encodeInt(Integer.reverseBytes(_machine), buf, 8);
+        HexCodec.encodeInt(Integer.reverseBytes(_inc), buf, 16);
+        return new String(buf);
     }
 
     public String toStringMongod() {
-        byte b[] = toByteArray();
-
-        StringBuilder buf = new StringBuilder(24);
-
-        for (int i = 0; i < b.length; i++) {
-            int x = b[i] & 0xFF;
-            String s = Integer.toHexString(x);
-            if (s.length() == 1)
-                buf.append("0");
-            buf.append(s);
-        }
-
-        return buf.toString();
+        char[] buf = new char[24];
+        HexCodec.encodeInt(_machine, buf, 0);
+        HexCodec.encodeInt(_time, buf, 8);
+        HexCodec.encodeInt(_inc, buf, 16);
+        return new String(buf);
     }
 
     /**
@@ -280,7 +390,43 @@ public class ShardableObjectId implements Comparable<ShardableObjectId>,
      * @since 2.0
      */
     public String toStringSortableBase64URLSafe() {
-        return Base64Mod.encodeToString(toByteArray());
+        return Base64Mod.encode96ToString(_high64(), _inc);
+    }
+
+    /**
+     * Writes {@link #toStringSortableBase64URLSafe()} into the given array
+     * without allocating.
+     * 
+     * @return number of chars written, always 16
+     */
+    public int writeTo(char[] dst, int off) {
+        return Base64Mod.encode96(_high64(), _inc, dst, off);
+    }
+
+    /**
+     * Writes {@link #toStringSortableBase64URLSafe()} as ascii bytes into the
+     * given array without allocating.
+     * 
+     * @return number of bytes written, always 16
+     */
+    public int writeTo(byte[] dst, int off) {
+        return Base64Mod.encode96(_high64(), _inc, dst, off);
+    }
+
+    /**
+     * Appends {@link #toStringSortableBase64URLSafe()} without allocating.
+     * 
+     * @return the passed appendable
+     */
+    public Appendable appendTo(Appendable a) throws IOException {
+        return Base64Mod.append96(_high64(), _inc, a);
+    }
+
+    /**
+     * @see #appendTo(Appendable)
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        return Base64Mod.append96(_high64(), _inc, sb);
     }
 
     /**
@@ -300,31 +446,101 @@ public class ShardableObjectId implements Comparable<ShardableObjectId>,
     }
 
     public byte[] toByteArray() {
-        byte b[] = new byte[12];
-        ByteBuffer bb = ByteBuffer.wrap(b);
-        // by default BB is big endian like we need
-        bb.putInt(_machine);
-        bb.putInt(_time);
-        bb.putInt(_inc);
-        return b;
+        return toByteArray(new byte[12], 0);
     }
 
-    static String _pos(String s, int p) {
-        return s.substring(p * 2, (p * 2) + 2);
+    /**
+     * Writes the 12 bytes of {@link #toByteArray()} starting at offset.
+     * 
+     * @return the passed array
+     * @throws IllegalArgumentException
+     *             if less than 12 bytes are available from offset
+     */
+    public byte[] toByteArray(byte[] dst, int offset) {
+        if (offset < 0 || dst.length - offset < 12)
+            throw new IllegalArgumentException("need 12 bytes");
+        _writeInt(_machine, dst, offset);
+        _writeInt(_time, dst, offset + 4);
+        _writeInt(_inc, dst, offset + 8);
+        return dst;
     }
 
+    /**
+     * Big endian int at offset.
+     */
+    static int _readInt(byte[] b, int offset) {
+        return (b[offset] << 24) | ((b[offset + 1] & 0xFF) << 16)
+                | ((b[offset + 2] & 0xFF) << 8) | (b[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Big endian int at offset.
+     */
+    static void _writeInt(int x, byte[] b, int offset) {
+        b[offset] = (byte) (x >>> 24);
+        b[offset + 1] = (byte) (x >>> 16);
+        b[offset + 2] = (byte) (x >>> 8);
+        b[offset + 3] = (byte) x;
+    }
+
+    /**
+     * @return machine and time, the first 8 bytes of {@link #toByteArray()}
+     */
+    long _high64() {
+        return ((long) _machine << 32) | (_time & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes the 12 bytes of {@link #toByteArray()} at the buffer's position,
+     * advancing it. Big endian regardless of the buffer's byte order. For the
+     * encoded string form use {@link #writeTo(byte[], int)} or
+     * {@link #appendTo(Appendable)}.
+     * 
+     * @return the passed buffer
+     * @throws IllegalArgumentException
+     *             if less than 12 bytes remain
+     */
+    public ByteBuffer writeTo(ByteBuffer bb) {
+        if (bb.remaining() < 12)
+            throw new IllegalArgumentException("need 12 bytes");
+        if (bb.order() == ByteOrder.LITTLE_ENDIAN) {
+            bb.putInt(Integer.reverseBytes(_machine));
+            bb.putInt(Integer.reverseBytes(_time));
+            bb.putInt(Integer.reverseBytes(_inc));
+        } else {
+            bb.putInt(_machine);
+            bb.putInt(_time);
+            bb.putInt(_inc);
+        }
+        return bb;
+    }
+
+    /**
+     * Source byte of each target byte when converting between babble and
+     * mongod hex, the same in both directions.
+     */
+    private static final int[] BABBLE_PERMUTATION = { 7, 6, 5, 4, 3, 2, 1, 0,
+            11, 10, 9, 8 };
+
+    /**
+     * Converts the babble hex form to the mongod hex form and back. Nibble
+     * pairs are shuffled in a single pass without substrings.
+     * 
+     * @throws IllegalArgumentException
+     *             if the string is not 24 hex digits
+     */
     public static String babbleToMongod(String b) {
-        if (!isValid(b))
+        if (b == null || b.length() != 24 || !HexCodec.isHex(b, 0, 24))
             throw new IllegalArgumentException("invalid shardable object id: "
                     + b);
 
-        StringBuilder buf = new StringBuilder(24);
-        for (int i = 7; i >= 0; i--)
-            buf.append(_pos(b, i));
-        for (int i = 15; i >= 8; i--)
-            buf.append(_pos(b, i));
-
-        return buf.toString();
+        char[] buf = new char[24];
+        for (int i = 0; i < BABBLE_PERMUTATION.length; i++) {
+            int from = BABBLE_PERMUTATION[i] * 2;
+            buf[i * 2] = b.charAt(from);
+            buf[i * 2 + 1] = b.charAt(from + 1);
+        }
+        return new String(buf);
     }
 
     @Override
@@ -417,9 +633,10 @@ public class ShardableObjectId implements Comparable<ShardableObjectId>,
      * loader
      * 
      * @return
+     * @see MachineIdProviders#setProvider(MachineIdProvider)
      */
     public static int getGenMachineId() {
-        return ObjectId.getGenMachineId();
+        return MachineIdProviders.getMachineId();
     }
 
     /**
@@ -428,7 +645,102 @@ public class ShardableObjectId implements Comparable<ShardableObjectId>,
      * @return
      */
     public static int getCurrentInc() {
-        return _nextInc.get();
+        return _nextInc.current();
+    }
+
+    /**
+     * Sets how many incs each generating thread leases from the shared counter
+     * at once. 1, the default, takes every inc from the shared counter. Larger
+     * blocks remove contention between many generating threads, at the price
+     * of incs no longer following call order across threads.
+     * 
+     * @throws IllegalArgumentException
+     *             if blockSize is less than 1
+     */
+    public static void setIncBlockSize(int blockSize) {
+        _nextInc.setBlockSize(blockSize);
+    }
+
+    public static int getIncBlockSize() {
+        return _nextInc.getBlockSize();
+    }
+
+    /**
+     * Sets the time source of generated ids, eg. {@link IdClocks#cached(long)}
+     * to avoid a clock call per id or {@link IdClocks#fixed(long)} in tests.
+     * Defaults to {@link IdClocks#system()}.
+     */
+    public static void setClock(IdClock clock) {
+        if (clock == null)
+            throw new IllegalArgumentException("clock is null");
+        _clock = clock;
+    }
+
+    public static IdClock getClock() {
+        return _clock;
+    }
+
+    /**
+     * Spreads the ids of this process over 2^bits machine prefixes instead of
+     * one, so inserts hit 2^bits regions of a machine ordered index. The
+     * prefix index is added to the top bits of the machine id, so the
+     * prefixes lie evenly apart in the sort order, and is taken from the low
+     * bits of the inc, so it rotates with every id. Ids parse as before.
+     * Only generated ids, from {@link #get()}, the no argument constructor and
+     * the generate methods, are spread; ids built from a given time keep the
+     * plain machine id.
+     * <p>
+     * The top bits must be free, so spreading needs a machine id below
+     * 2^(32 - bits), eg. set with {@link MachineIdProviders#explicit(int)}.
+     * Distinct machine ids then never share a spread machine id. The default
+     * BSON machine id keeps a host hash in its high bits and is refused.
+     * 
+     * @param bits
+     *            0, the default, disables spreading; at most 16
+     * @throws IllegalArgumentException
+     *             if bits is out of range or the machine id uses the top bits
+     */
+    public static void setPrefixSpreadBits(int bits) {
+        _spreadBits = _checkSpreadBits(bits);
+    }
+
+    public static int getPrefixSpreadBits() {
+        return _spreadBits;
+    }
+
+    static int _checkSpreadBits(int bits) {
+        if (bits < 0 || bits > 16)
+            throw new IllegalArgumentException(
+                    "spread bits must be in [0, 16]: " + bits);
+        if (bits > 0 && !_spreadable(getGenMachineId(), bits))
+            throw new IllegalArgumentException(_notSpreadable(
+                    getGenMachineId(), bits));
+        return bits;
+    }
+
+    /**
+     * @return the machine id with the prefix index of inc in its top bits
+     * @throws IllegalStateException
+     *             if the machine id uses the top bits, eg. after the machine
+     *             id provider changed
+     * @see #setPrefixSpreadBits(int)
+     */
+    static int _spread(int machine, int bits, int inc) {
+        if (bits == 0)
+            return machine;
+        if (!_spreadable(machine, bits))
+            throw new IllegalStateException(_notSpreadable(machine, bits));
+        return machine | (inc << (32 - bits));
+    }
+
+    static boolean _spreadable(int machine, int bits) {
+        return machine >>> (32 - bits) == 0;
+    }
+
+    private static String _notSpreadable(int machine, int bits) {
+        return "machine id 0x" + Integer.toHexString(machine) + " uses the top "
+                + bits + " bits needed for prefix spreading, set a machine id"
+                + " below 2^" + (32 - bits);
     }
 
     final int _machine;
@@ -446,7 +758,10 @@ public class ShardableObjectId implements Comparable<ShardableObjectId>,
         return z;
     }
 
-    private static AtomicInteger _nextInc = new AtomicInteger(
-            (new java.util.Random()).nextInt());
+    private static final IncCounter _nextInc = new IncCounter();
+
+    private static volatile IdClock _clock = IdClocks.system();
+
+    private static volatile int _spreadBits;
 
 }
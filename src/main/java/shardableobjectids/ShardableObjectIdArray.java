@@ -0,0 +1,168 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Growable array of {@link ShardableObjectId}s packed into an
+ * <code>int[]</code>, 3 ints (12 bytes) per id instead of an object and a
+ * reference. Ints are stored as machine, time, inc - the order of
+ * {@link ShardableObjectId#toByteArray()} and
+ * {@link ShardableObjectId#compareTo(ShardableObjectId)}.
+ * <p>
+ * Not thread safe.
+ * </p>
+ */
+public class ShardableObjectIdArray extends PackedIdArray implements
+        ShardableObjectId.IdSink {
+
+    private static final int STRIDE = 3;
+
+    public ShardableObjectIdArray() {
+        this(16);
+    }
+
+    public ShardableObjectIdArray(int initialCapacity) {
+        super(STRIDE, initialCapacity);
+    }
+
+    public void add(ShardableObjectId id) {
+        add(id._machine, id._time, id._inc);
+    }
+
+    public void add(int machine, int time, int inc) {
+        int o = append();
+        data[o] = machine;
+        data[o + 1] = time;
+        data[o + 2] = inc;
+    }
+
+    /**
+     * Same as add, lets the array be the target of
+     * {@link ShardableObjectId#generate(int, ShardableObjectId.IdSink)}.
+     */
+    public void accept(int machine, int time, int inc) {
+        add(machine, time, inc);
+    }
+
+    public void set(int index, ShardableObjectId id) {
+        int o = offset(index);
+        data[o] = id._machine;
+        data[o + 1] = id._time;
+        data[o + 2] = id._inc;
+    }
+
+    public ShardableObjectId get(int index) {
+        int o = offset(index);
+        return new ShardableObjectId(data[o + 1], data[o], data[o + 2]);
+    }
+
+    /**
+     * Copies the id at index into the holder without allocating.
+     * 
+     * @param holder
+     *            receives machine, time, inc at holderOffset
+     * @return the holder
+     */
+    public int[] get(int index, int[] holder, int holderOffset) {
+        System.arraycopy(data, offset(index), holder, holderOffset, STRIDE);
+        return holder;
+    }
+
+    public int getMachine(int index) {
+        return data[offset(index)];
+    }
+
+    public int getTimeSecond(int index) {
+        return data[offset(index) + 1];
+    }
+
+    public int getInc(int index) {
+        return data[offset(index) + 2];
+    }
+
+    /**
+     * Binary search on a {@link #sort() sorted} array.
+     * 
+     * @return index of the id or <code>-(insertion point) - 1</code> like
+     *         {@link java.util.Arrays#binarySearch(int[], int)}
+     */
+    public int binarySearch(ShardableObjectId key) {
+        return binarySearch(key._machine, key._time, key._inc);
+    }
+
+    public int binarySearch(int machine, int time, int inc) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int o = mid * STRIDE;
+            int c = compareUnsigned(data[o], machine);
+            if (c == 0) {
+                c = compareUnsigned(data[o + 1], time);
+                if (c == 0)
+                    c = compareUnsigned(data[o + 2], inc);
+            }
+            if (c < 0)
+                lo = mid + 1;
+            else if (c > 0)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -(lo + 1);
+    }
+
+    /**
+     * @return same as {@link ShardableObjectId#toStringSortableBase64URLSafe()}
+     *         for the id at index
+     */
+    public String encodeToString(int index) {
+        int o = offset(index);
+        return Base64Mod.encode96ToString(
+                ((long) data[o] << 32) | (data[o + 1] & 0xFFFFFFFFL),
+                data[o + 2]);
+    }
+
+    /**
+     * Writes all ids in sortable base64 back to back, 16 chars each.
+     * 
+     * @return number of chars written
+     */
+    public int encode(char[] target, int targetOffset) {
+        int len = _length(size, Base64Mod.ENCODED_96_BITS_LENGTH);
+        if (targetOffset < 0 || target.length - targetOffset < len)
+            throw new IllegalArgumentException("target needs " + len
+                    + " chars from offset " + targetOffset);
+        int pos = targetOffset;
+        for (int o = 0; o < size * STRIDE; o += STRIDE) {
+            pos += Base64Mod.encode96(
+                    ((long) data[o] << 32) | (data[o + 1] & 0xFFFFFFFFL),
+                    data[o + 2], target, pos);
+        }
+        return len;
+    }
+
+    /**
+     * Appends count ids read from back to back sortable base64, as written by
+     * {@link #encode(char[], int)}.
+     * 
+     * @throws IllegalArgumentException
+     *             on malformed input, ids before the malformed one are kept
+     */
+    public void decode(CharSequence in, int offset, int count) {
+        int len = _length(count, Base64Mod.ENCODED_96_BITS_LENGTH);
+        if (offset < 0 || count < 0 || in.length() - offset < len)
+            throw new IllegalArgumentException("need " + len
+                    + " chars from offset " + offset);
+        ensureCapacity(size + count);
+        int end = offset + len;
+        for (int pos = offset; pos < end; pos += Base64Mod.ENCODED_96_BITS_LENGTH) {
+            long high = Base64Mod.decodeHigh64(in, pos);
+            add((int) (high >>> 32), (int) high,
+                    Base64Mod.decode96Low32(in, pos));
+        }
+    }
+
+}
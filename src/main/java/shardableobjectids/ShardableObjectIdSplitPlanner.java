@@ -0,0 +1,74 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.util.Random;
+
+/**
+ * Plans split points of {@link ShardableObjectId} ranges from a sample of
+ * ids, eg. to pre-split a collection before a bulk load. See
+ * {@link SplitPlanner} for the sketch.
+ */
+public class ShardableObjectIdSplitPlanner extends
+        SplitPlanner<ShardableObjectIdArray> {
+
+    public ShardableObjectIdSplitPlanner(int sampleSize) {
+        this(sampleSize, new Random());
+    }
+
+    public ShardableObjectIdSplitPlanner(int sampleSize, Random random) {
+        super(new ShardableObjectIdArray(
+                Math.max(0, Math.min(sampleSize, 1024))),
+                sampleSize, random);
+    }
+
+    public void add(ShardableObjectId id) {
+        add(id._machine, id._time, id._inc);
+    }
+
+    public void add(int machine, int time, int inc) {
+        int o = slot();
+        if (o >= 0) {
+            int[] d = sample().data;
+            d[o] = machine;
+            d[o + 1] = time;
+            d[o + 2] = inc;
+        }
+    }
+
+    public void addAll(ShardableObjectIdArray ids) {
+        for (int i = 0; i < ids.size(); i++) {
+            add(ids.getMachine(i), ids.getTimeSecond(i), ids.getInc(i));
+        }
+    }
+
+    /**
+     * @return the 12 byte big endian keys of {@link #splitPoints(int)}
+     */
+    public byte[][] splitPointBytes(int chunks) {
+        ShardableObjectIdArray points = splitPoints(chunks);
+        byte[][] keys = new byte[points.size()][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = points.get(i).toByteArray();
+        }
+        return keys;
+    }
+
+    /**
+     * @return the sortable base64 keys of {@link #splitPoints(int)}
+     */
+    public String[] splitPointStrings(int chunks) {
+        ShardableObjectIdArray points = splitPoints(chunks);
+        String[] keys = new String[points.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = points.encodeToString(i);
+        }
+        return keys;
+    }
+
+    @Override
+    ShardableObjectIdArray newArray(int capacity) {
+        return new ShardableObjectIdArray(capacity);
+    }
+}
@@ -0,0 +1,395 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.io.IOException;
+
+/**
+ * The compact layout of {@link ShardableObjectIdWithMoPrefix}: the month is
+ * stored as the number of months since 1970-01 in 2 bytes instead of as
+ * shifted yyyymm in 4, so ids take 14 bytes and 19 sortable base64 chars
+ * instead of 16 and 22. Covers 1970-01 up to 7431-04.
+ * <p>
+ * Consists of 14 bytes: month index (2), machine, time, inc (4 each), big
+ * endian. The month index grows with yyyymm, so both layouts sort the same
+ * and convert into each other without loss, see the bulk converters.
+ */
+public class ShardableObjectIdWithCompactMoPrefix implements
+        Comparable<ShardableObjectIdWithCompactMoPrefix>, java.io.Serializable {
+
+    private static final long serialVersionUID = 3050471563298147261L;
+
+    /** Highest month index, 7431-04. */
+    public static final int MAX_MONTH_INDEX = 0xFFFF;
+
+    /**
+     * Gets a new id. Generation is shared with
+     * {@link ShardableObjectIdWithMoPrefix#get()}, including its clock, month
+     * zone, inc counter and prefix spreading, so ids of both layouts created
+     * in one process never collide.
+     */
+    public static ShardableObjectIdWithCompactMoPrefix get() {
+        return new ShardableObjectIdWithCompactMoPrefix(
+                ShardableObjectIdWithMoPrefix.get());
+    }
+
+    /**
+     * @return months since 1970-01 of a yyyymm month, eg. 507 for 201204
+     * @throws IllegalArgumentException
+     *             if the month is invalid or out of the compact range
+     */
+    public static int toMonthIndex(int yyyymm) {
+        int year = yyyymm / 100;
+        int month = yyyymm % 100;
+        int index = (year - 1970) * 12 + month - 1;
+        if (month < 1 || month > 12 || year < 1970 || index > MAX_MONTH_INDEX)
+            throw new IllegalArgumentException("month out of compact range: "
+                    + yyyymm);
+        return index;
+    }
+
+    /**
+     * @return yyyymm of a month index, the inverse of
+     *         {@link #toMonthIndex(int)}
+     */
+    public static int toYyyymm(int monthIndex) {
+        if (monthIndex < 0 || monthIndex > MAX_MONTH_INDEX)
+            throw new IllegalArgumentException("not a month index: "
+                    + monthIndex);
+        return (1970 + monthIndex / 12) * 100 + monthIndex % 12 + 1;
+    }
+
+    /**
+     * Parses the 19 char sortable base64 or 28 char hex form in a single pass
+     * over the input, without exceptions for malformed input.
+     *
+     * @return the id or <code>null</code> if the range is not a valid id
+     */
+    public static ShardableObjectIdWithCompactMoPrefix tryParse(
+            CharSequence s, int offset, int len) {
+        FixedWidthDecoder d = new FixedWidthDecoder();
+        if (!d.decode(s, offset, len, 112))
+            return null;
+        return new ShardableObjectIdWithCompactMoPrefix(
+                (int) (d.high >>> 32) & 0xFFFF, (int) d.high,
+                (int) (d.low >>> 32), (int) d.low);
+    }
+
+    public static ShardableObjectIdWithCompactMoPrefix tryParse(CharSequence s) {
+        return s == null ? null : tryParse(s, 0, s.length());
+    }
+
+    /**
+     * Converts count ids from the 16 byte layout of
+     * {@link ShardableObjectIdWithMoPrefix#toByteArray()} to the 14 byte
+     * layout.
+     *
+     * @throws IllegalArgumentException
+     *             if a month is out of the compact range or the arrays are
+     *             too short
+     */
+    public static void fromMoPrefixBytes(byte[] src, int srcOffset,
+            byte[] dst, int dstOffset, int count) {
+        if (count < 0 || srcOffset < 0 || dstOffset < 0
+                || (src.length - srcOffset) / 16 < count
+                || (dst.length - dstOffset) / 14 < count)
+            throw new IllegalArgumentException("arrays too short for "
+                    + count + " ids");
+        for (int i = 0; i < count; i++) {
+            int s = srcOffset + i * 16;
+            int d = dstOffset + i * 14;
+            _writeShort(toMonthIndex(ShardableObjectId._readInt(src, s) >> 2),
+                    dst, d);
+            System.arraycopy(src, s + 4, dst, d + 2, 12);
+        }
+    }
+
+    /**
+     * @return the ids of a packed 16 byte array, converted to a packed 14 byte
+     *         array
+     */
+    public static byte[] fromMoPrefixBytes(byte[] src) {
+        if (src.length % 16 != 0)
+            throw new IllegalArgumentException("not a multiple of 16 bytes: "
+                    + src.length);
+        byte[] dst = new byte[src.length / 16 * 14];
+        fromMoPrefixBytes(src, 0, dst, 0, src.length / 16);
+        return dst;
+    }
+
+    /**
+     * @return all ids of the array as packed 14 byte ids, in array order
+     * @throws IllegalArgumentException
+     *             if a month is out of the compact range or the packed ids
+     *             would not fit into one array
+     */
+    public static byte[] fromMoPrefixArray(
+            ShardableObjectIdWithMoPrefixArray ids) {
+        int n = ids.size();
+        byte[] dst = new byte[PackedIdArray._length(n, 14)];
+        for (int i = 0; i < n; i++) {
+            int d = i * 14;
+            _writeShort(toMonthIndex(ids.getMonth(i)), dst, d);
+            ShardableObjectId._writeInt(ids.getMachine(i), dst, d + 2);
+            ShardableObjectId._writeInt(ids.getTimeSecond(i), dst, d + 6);
+            ShardableObjectId._writeInt(ids.getInc(i), dst, d + 10);
+        }
+        return dst;
+    }
+
+    /**
+     * Converts count ids from the 14 byte layout back to the 16 byte layout
+     * of {@link ShardableObjectIdWithMoPrefix#toByteArray()}.
+     *
+     * @throws IllegalArgumentException
+     *             if the arrays are too short
+     */
+    public static void toMoPrefixBytes(byte[] src, int srcOffset, byte[] dst,
+            int dstOffset, int count) {
+        if (count < 0 || srcOffset < 0 || dstOffset < 0
+                || (src.length - srcOffset) / 14 < count
+                || (dst.length - dstOffset) / 16 < count)
+            throw new IllegalArgumentException("arrays too short for "
+                    + count + " ids");
+        for (int i = 0; i < count; i++) {
+            int s = srcOffset + i * 14;
+            int d = dstOffset + i * 16;
+            ShardableObjectId._writeInt(toYyyymm(_readShort(src, s)) << 2,
+                    dst, d);
+            System.arraycopy(src, s + 2, dst, d + 4, 12);
+        }
+    }
+
+    public ShardableObjectIdWithCompactMoPrefix(int monthIndex, int machine,
+            int time, int inc) {
+        if (monthIndex < 0 || monthIndex > MAX_MONTH_INDEX)
+            throw new IllegalArgumentException("not a month index: "
+                    + monthIndex);
+        _monthIndex = monthIndex;
+        _machine = machine;
+        _time = time;
+        _inc = inc;
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the month is out of the compact range
+     */
+    public ShardableObjectIdWithCompactMoPrefix(ShardableObjectIdWithMoPrefix id) {
+        this(toMonthIndex(id.getMonth()), id.getMachine(), id.getTimeSecond(),
+                id.getInc());
+    }
+
+    /**
+     * Parses the sortable base64 or hex form.
+     *
+     * @throws IllegalArgumentException
+     *             if the string is not a valid id
+     */
+    public ShardableObjectIdWithCompactMoPrefix(String s) {
+        ShardableObjectIdWithCompactMoPrefix id = tryParse(s);
+        if (id == null)
+            throw new IllegalArgumentException(
+                    "invalid ShardableObjectIdWithCompactMoPrefix [" + s + "]");
+        _monthIndex = id._monthIndex;
+        _machine = id._machine;
+        _time = id._time;
+        _inc = id._inc;
+    }
+
+    /**
+     * Reads the 14 bytes of {@link #toByteArray()} starting at offset.
+     *
+     * @throws IllegalArgumentException
+     *             if less than 14 bytes are available from offset
+     */
+    public ShardableObjectIdWithCompactMoPrefix(byte[] src, int offset) {
+        if (offset < 0 || src.length - offset < 14)
+            throw new IllegalArgumentException("need 14 bytes");
+        _monthIndex = _readShort(src, offset);
+        _machine = ShardableObjectId._readInt(src, offset + 2);
+        _time = ShardableObjectId._readInt(src, offset + 6);
+        _inc = ShardableObjectId._readInt(src, offset + 10);
+    }
+
+    public ShardableObjectIdWithCompactMoPrefix(byte[] b) {
+        this(b, 0);
+    }
+
+    public ShardableObjectIdWithMoPrefix toMoPrefix() {
+        return new ShardableObjectIdWithMoPrefix(toMoPrefixByteArray());
+    }
+
+    /**
+     * @return the 16 bytes of {@link ShardableObjectIdWithMoPrefix} for this
+     *         id
+     */
+    public byte[] toMoPrefixByteArray() {
+        byte[] b = new byte[16];
+        ShardableObjectId._writeInt(getMonth() << 2, b, 0);
+        ShardableObjectId._writeInt(_machine, b, 4);
+        ShardableObjectId._writeInt(_time, b, 8);
+        ShardableObjectId._writeInt(_inc, b, 12);
+        return b;
+    }
+
+    public byte[] toByteArray() {
+        return toByteArray(new byte[14], 0);
+    }
+
+    /**
+     * Writes the 14 bytes of {@link #toByteArray()} starting at offset.
+     *
+     * @return the passed array
+     * @throws IllegalArgumentException
+     *             if less than 14 bytes are available from offset
+     */
+    public byte[] toByteArray(byte[] dst, int offset) {
+        if (offset < 0 || dst.length - offset < 14)
+            throw new IllegalArgumentException("need 14 bytes");
+        _writeShort(_monthIndex, dst, offset);
+        ShardableObjectId._writeInt(_machine, dst, offset + 2);
+        ShardableObjectId._writeInt(_time, dst, offset + 6);
+        ShardableObjectId._writeInt(_inc, dst, offset + 10);
+        return dst;
+    }
+
+    public String toStringSortableBase64URLSafe() {
+        return Base64Mod.encode112ToString(_high48(), _low64());
+    }
+
+    /**
+     * Writes {@link #toStringSortableBase64URLSafe()} into the given array
+     * without allocating.
+     *
+     * @return number of chars written, always 19
+     */
+    public int writeTo(char[] dst, int off) {
+        return Base64Mod.encode112(_high48(), _low64(), dst, off);
+    }
+
+    /**
+     * Writes {@link #toStringSortableBase64URLSafe()} as ascii bytes into the
+     * given array without allocating.
+     *
+     * @return number of bytes written, always 19
+     */
+    public int writeTo(byte[] dst, int off) {
+        return Base64Mod.encode112(_high48(), _low64(), dst, off);
+    }
+
+    public Appendable appendTo(Appendable a) throws IOException {
+        return Base64Mod.append112(_high48(), _low64(), a);
+    }
+
+    public StringBuilder appendTo(StringBuilder sb) {
+        return Base64Mod.append112(_high48(), _low64(), sb);
+    }
+
+    public String toStringMongod() {
+        char[] buf = new char[28];
+        HexCodec.encodeShort(_monthIndex, buf, 0);
+        HexCodec.encodeInt(_machine, buf, 4);
+        HexCodec.encodeInt(_time, buf, 12);
+        HexCodec.encodeInt(_inc, buf, 20);
+        return new String(buf);
+    }
+
+    @Override
+    public String toString() {
+        return toStringSortableBase64URLSafe();
+    }
+
+    /**
+     * Ordering is by month, machine, time, inc, all unsigned, the same as
+     * {@link ShardableObjectIdWithMoPrefix#compareTo}.
+     */
+    public int compareTo(ShardableObjectIdWithCompactMoPrefix id) {
+        int x = Long.compareUnsigned(_high48(), id._high48());
+        if (x != 0)
+            return x;
+        return Long.compareUnsigned(_low64(), id._low64());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof ShardableObjectIdWithCompactMoPrefix))
+            return false;
+        ShardableObjectIdWithCompactMoPrefix other = (ShardableObjectIdWithCompactMoPrefix) o;
+        return _monthIndex == other._monthIndex && _machine == other._machine
+                && _time == other._time && _inc == other._inc;
+    }
+
+    @Override
+    public int hashCode() {
+        return IdHashTable.hash(_monthIndex, _machine, _time, _inc);
+    }
+
+    /**
+     * @return the month as yyyymm, eg. 201204
+     */
+    public int getMonth() {
+        return toYyyymm(_monthIndex);
+    }
+
+    /**
+     * @return months since 1970-01
+     */
+    public int getMonthIndex() {
+        return _monthIndex;
+    }
+
+    public int getMachine() {
+        return _machine;
+    }
+
+    /**
+     * Gets the time of this ID, in milliseconds
+     */
+    public long getTime() {
+        return _time * 1000L;
+    }
+
+    /**
+     * Gets the time of this ID, in seconds
+     */
+    public int getTimeSecond() {
+        return _time;
+    }
+
+    public int getInc() {
+        return _inc;
+    }
+
+    /**
+     * @return month index and machine, the first 6 bytes of
+     *         {@link #toByteArray()}
+     */
+    long _high48() {
+        return ((long) _monthIndex << 32) | (_machine & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return time and inc, the last 8 bytes of {@link #toByteArray()}
+     */
+    long _low64() {
+        return ((long) _time << 32) | (_inc & 0xFFFFFFFFL);
+    }
+
+    static int _readShort(byte[] b, int offset) {
+        return ((b[offset] & 0xff) << 8) | (b[offset + 1] & 0xff);
+    }
+
+    static void _writeShort(int x, byte[] b, int offset) {
+        b[offset] = (byte) (x >>> 8);
+        b[offset + 1] = (byte) x;
+    }
+
+    final int _monthIndex;
+    final int _machine;
+    final int _time;
+    final int _inc;
+}
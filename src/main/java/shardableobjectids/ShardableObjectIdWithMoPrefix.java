@@ -21,12 +21,13 @@ package shardableobjectids;
  *   limitations under the License.
  */
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.Calendar;
+import java.nio.ByteOrder;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.Date;
-import java.util.concurrent.atomic.AtomicInteger;
 
-import org.bson.types.ObjectId;
 
 /**
  * A globally unique identifier for objects.
@@ -58,6 +59,97 @@ public class ShardableObjectIdWithMoPrefix implements
         return new ShardableObjectIdWithMoPrefix();
     }
 
+    /**
+     * Receives generated ids field by field, see
+     * {@link ShardableObjectIdWithMoPrefix#generate(int, IdSink)}.
+     */
+    public interface IdSink {
+        void accept(int month, int machine, int time, int inc);
+    }
+
+    /**
+     * Generates n new ids in one go: reserves n increments with a single
+     * atomic add and reads the clock, month and machine id once for the
+     * batch.
+     * 
+     * @param sink
+     *            receives the ids in increasing inc order, eg. a
+     *            {@link ShardableObjectIdWithMoPrefixArray}
+     * @return the sink
+     */
+    public static <S extends IdSink> S generate(int n, S sink) {
+        if (n < 0)
+            throw new IllegalArgumentException("negative count: " + n);
+        long currentTimeMillis = _clock.currentTimeMillis();
+        int month = _month(currentTimeMillis);
+        int time = (int) (currentTimeMillis / 1000);
+        int machine = getGenMachineId();
+        int spreadBits = _spreadBits;
+        int inc = _nextInc.next(n);
+        for (int i = 0; i < n; i++) {
+            sink.accept(month, ShardableObjectId._spread(machine,
+                    spreadBits, inc + i), time, inc + i);
+        }
+        return sink;
+    }
+
+    /**
+     * Same as {@link #generate(int, IdSink)}, writing the 16 bytes of
+     * {@link #toByteArray()} per id at the buffer's position.
+     * 
+     * @throws IllegalArgumentException
+     *             if less than 16 * n bytes remain
+     */
+    public static ByteBuffer generate(int n, ByteBuffer target) {
+        if (n < 0 || target.remaining() / 16 < n)
+            throw new IllegalArgumentException("need " + 16L * n + " bytes");
+        long currentTimeMillis = _clock.currentTimeMillis();
+        int month = _month(currentTimeMillis) << 2;
+        int time = (int) (currentTimeMillis / 1000);
+        int machine = getGenMachineId();
+        int spreadBits = _spreadBits;
+        int inc = _nextInc.next(n);
+        if (target.order() == ByteOrder.LITTLE_ENDIAN) {
+            month = Integer.reverseBytes(month);
+            time = Integer.reverseBytes(time);
+            for (int i = 0; i < n; i++) {
+                target.putInt(month)
+                        .putInt(Integer.reverseBytes(ShardableObjectId._spread(
+                                machine, spreadBits, inc + i))).putInt(time)
+                        .putInt(Integer.reverseBytes(inc + i));
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                target.putInt(month)
+                        .putInt(ShardableObjectId._spread(machine, spreadBits,
+                                inc + i)).putInt(time).putInt(inc + i);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * The yyyymm month of the given time in the month zone.
+     */
+    static int _month(long millis) {
+        return _monthResolver.monthOfMillis(millis);
+    }
+
+    private static volatile MonthResolver _monthResolver = MonthResolver.UTC;
+
+    /**
+     * Sets the time zone in which the month prefix of new ids is computed,
+     * UTC by default.
+     */
+    public static void setMonthZone(ZoneId zone) {
+        _monthResolver = zone.equals(ZoneOffset.UTC) ? MonthResolver.UTC
+                : new MonthResolver(zone);
+    }
+
+    public static ZoneId getMonthZone() {
+        return _monthResolver.getZone();
+    }
+
     /**
      * Checks if a string could be an <code>ShardableObjectIdWithMoPrefix</code>
      * .
@@ -70,15 +162,7 @@ public class ShardableObjectIdWithMoPrefix implements
 
         final int len = s.length();
         if (len == 32) {
-            for (int i = 0; i < len; i++) {
-                char c = s.charAt(i);
-                if (c >= '0' && c <= '9')
-                    continue;
-                if (c >= 'a' && c <= 'f')
-                    continue;
-                if (c >= 'A' && c <= 'F')
-                    continue;
-
+            if (!HexCodec.isHex(s, 0, len)) {
                 return false;
             }
         } else if (len == 22) {
@@ -113,13 +197,30 @@ public class ShardableObjectIdWithMoPrefix implements
 
         if (o instanceof String) {
             String s = o.toString();
-            if (isValid(s))
-                return new ShardableObjectIdWithMoPrefix(s);
+            return tryParse(s, 0, s.length());
         }
 
         return null;
     }
 
+    /**
+     * Parses the sortable base64 or mongod hex form in a single pass over the
+     * input, without exceptions for malformed input.
+     * 
+     * @return the id or <code>null</code> if the range is not a valid id
+     */
+    public static ShardableObjectIdWithMoPrefix tryParse(CharSequence s,
+            int offset, int len) {
+        FixedWidthDecoder d = new FixedWidthDecoder();
+        if (!d.decode(s, offset, len, 128))
+            return null;
+        return new ShardableObjectIdWithMoPrefix(d.high, d.low);
+    }
+
+    public static ShardableObjectIdWithMoPrefix tryParse(CharSequence s) {
+        return s == null ? null : tryParse(s, 0, s.length());
+    }
+
     /*
      * somehow didn't work for me: private static Boolean staticLock = new
      * Boolean(true); private static boolean registeredBSONCodecs = false;
@@ -136,7 +237,7 @@ public class ShardableObjectIdWithMoPrefix implements
      */
 
     public ShardableObjectIdWithMoPrefix(Date time) {
-        this(time, getGenMachineId(), _nextInc.getAndIncrement());
+        this(time, _nextInc.next());
     }
 
     public ShardableObjectIdWithMoPrefix(Date time, int inc) {
@@ -144,10 +245,7 @@ public class ShardableObjectIdWithMoPrefix implements
     }
 
     public ShardableObjectIdWithMoPrefix(Date time, int machine, int inc) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(time);
-        _month = calendar.get(Calendar.YEAR) * 100
-                + calendar.get(Calendar.MONTH) + 1;
+        _month = _month(time.getTime());
         _time = (int) (time.getTime() / 1000);
         _machine = machine;
         _inc = inc;
@@ -172,36 +270,95 @@ public class ShardableObjectIdWithMoPrefix implements
             throw new IllegalArgumentException(
                     "invalid ShardableObjectIdWithMoPrefix [" + s + "]");
 
-        if (babble)
-            s = babbleToMongod(s);
-
-        byte b[];
         if (s.length() == 22) {
-            b = Base64Mod.decode(s);
+            if (babble)
+                throw new IllegalArgumentException(
+                        "babble needs the hex form [" + s + "]");
+            long high = Base64Mod.decodeHigh64(s, 0);
+            long low = Base64Mod.decode128Low64(s, 0);
+            _month = (int) (high >> 32) >> 2;
+            _machine = (int) high;
+            _time = (int) (low >>> 32);
+            _inc = (int) low;
+        } else if (babble) {
+            // babble reverses the bytes of month+machine and of time+inc
+            _month = Integer.reverseBytes(HexCodec.decodeInt(s, 8)) >> 2;
+            _machine = Integer.reverseBytes(HexCodec.decodeInt(s, 0));
+            _time = Integer.reverseBytes(HexCodec.decodeInt(s, 24));
+            _inc = Integer.reverseBytes(HexCodec.decodeInt(s, 16));
         } else {
-            b = new byte[16];
-            for (int i = 0; i < b.length; i++) {
-                b[i] = (byte) Integer.parseInt(s.substring(i * 2, i * 2 + 2),
-                        16);
-            }
+            _month = HexCodec.decodeInt(s, 0) >> 2;
+            _machine = HexCodec.decodeInt(s, 8);
+            _time = HexCodec.decodeInt(s, 16);
+            _inc = HexCodec.decodeInt(s, 24);
         }
-
-        ByteBuffer bb = ByteBuffer.wrap(b);
-        _month = bb.getInt() >> 2;
-        _machine = bb.getInt();
-        _time = bb.getInt();
-        _inc = bb.getInt();
         _new = false;
     }
 
     public ShardableObjectIdWithMoPrefix(byte[] b) {
+        this(checkLength(b), 0);
+    }
+
+    /**
+     * Reads the 16 bytes of {@link #toByteArray()} starting at offset, eg.
+     * out of a page of packed ids.
+     * 
+     * @throws IllegalArgumentException
+     *             if less than 16 bytes are available from offset
+     */
+    public ShardableObjectIdWithMoPrefix(byte[] src, int offset) {
+        if (offset < 0 || src.length - offset < 16)
+            throw new IllegalArgumentException("need 16 bytes");
+        _month = ShardableObjectId._readInt(src, offset) >> 2;
+        _machine = ShardableObjectId._readInt(src, offset + 4);
+        _time = ShardableObjectId._readInt(src, offset + 8);
+        _inc = ShardableObjectId._readInt(src, offset + 12);
+        _new = false;
+    }
+
+    private static byte[] checkLength(byte[] b) {
         if (b.length != 16)
             throw new IllegalArgumentException("need 16 bytes");
-        ByteBuffer bb = ByteBuffer.wrap(b);
-        _month = bb.getInt() >> 2;
-        _machine = bb.getInt();
-        _time = bb.getInt();
-        _inc = bb.getInt();
+        return b;
+    }
+
+    /**
+     * Reads the 16 bytes of {@link #toByteArray()} from the buffer's position
+     * without copying, advancing the position. Works on heap and direct
+     * buffers. The bytes are read big endian regardless of the buffer's byte
+     * order.
+     * 
+     * @throws IllegalArgumentException
+     *             if less than 16 bytes remain
+     */
+    public ShardableObjectIdWithMoPrefix(ByteBuffer bb) {
+        if (bb.remaining() < 16)
+            throw new IllegalArgumentException("need 16 bytes");
+        int month = bb.getInt();
+        int machine = bb.getInt();
+        int time = bb.getInt();
+        int inc = bb.getInt();
+        if (bb.order() == ByteOrder.LITTLE_ENDIAN) {
+            month = Integer.reverseBytes(month);
+            machine = Integer.reverseBytes(machine);
+            time = Integer.reverseBytes(time);
+            inc = Integer.reverseBytes(inc);
+        }
+        _month = month >> 2;
+        _machine = machine;
+        _time = time;
+        _inc = inc;
+        _new = false;
+    }
+
+    /**
+     * Creates an id from the two big endian longs of {@link #toByteArray()}.
+     */
+    ShardableObjectIdWithMoPrefix(long high64, long low64) {
+        _month = (int) (high64 >> 32) >> 2;
+        _machine = (int) high64;
+        _time = (int) (low64 >>> 32);
+        _inc = (int) low64;
         _new = false;
     }
 
@@ -216,10 +373,7 @@ public class ShardableObjectIdWithMoPrefix implements
      *            incremental value
      */
     public ShardableObjectIdWithMoPrefix(int time, int machine, int inc) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(new Date(time * 1000L));
-        _month = calendar.get(Calendar.YEAR) * 100
-                + calendar.get(Calendar.MONTH) + 1;
+        _month = _monthResolver.monthOfSecond(time);
         _time = time;
         _machine = machine;
         _inc = inc;
@@ -230,14 +384,12 @@ public class ShardableObjectIdWithMoPrefix implements
      * Create a new shardable object id with month prefix.
      */
     public ShardableObjectIdWithMoPrefix() {
-        long currentTimeMillis = System.currentTimeMillis();
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(new Date(currentTimeMillis));
-        _month = calendar.get(Calendar.YEAR) * 100
-                + calendar.get(Calendar.MONTH) + 1;
+        long currentTimeMillis = _clock.currentTimeMillis();
+        _month = _month(currentTimeMillis);
         _time = (int) (currentTimeMillis / 1000);
-        _machine = getGenMachineId();
-        _inc = _nextInc.getAndIncrement();
+        _inc = _nextInc.next();
+        _machine = ShardableObjectId._spread(getGenMachineId(), _spreadBits,
+                _inc);
         _new = true;
     }
 
@@ -269,23 +421,21 @@ public class ShardableObjectIdWithMoPrefix implements
     }
 
     public String toStringBabble() {
-        return babbleToMongod(toStringMongod());
+        char[] buf = new char[32];
+        HexCodec.encodeInt(Integer.reverseBytes(_machine), buf, 0);
+        HexCodec.encodeInt(Integer.reverseBytes(_month << 2), buf, 8);
+        HexCodec.encodeInt(Integer.reverseBytes(_inc), buf, 16);
+        HexCodec.encodeInt(Integer.reverseBytes(_time), buf, 24);
+        return new String(buf);
     }
 
     public String toStringMongod() {
-        byte b[] = toByteArray();
-
-        StringBuilder buf = new StringBuilder(32);
-
-        for (int i = 0; i < b.length; i++) {
-            int x = b[i] & 0xFF;
-            String s = Integer.toHexString(x);
-            if (s.length() == 1)
-                buf.append("0");
-            buf.append(s);
-        }
-
-        return buf.toString();
+        char[] buf = new char[32];
+        HexCodec.encodeInt(_month << 2, buf, 0);
+        HexCodec.encodeInt(_machine, buf, 8);
+        HexCodec.encodeInt(_time, buf, 16);
+        HexCodec.encodeInt(_inc, buf, 24);
+        return new String(buf);
     }
 
     /**
@@ -295,7 +445,43 @@ public class ShardableObjectIdWithMoPrefix implements
      * @return
      */
     public String toStringSortableBase64URLSafe() {
-        return Base64Mod.encodeToString(toByteArray());
+        return Base64Mod.encode128ToString(_high64(), _low64());
+    }
+
+    /**
+     * Writes {@link #toStringSortableBase64URLSafe()} into the given array
+     * without allocating.
+     * 
+     * @return number of chars written, always 22
+     */
+    public int writeTo(char[] dst, int off) {
+        return Base64Mod.encode128(_high64(), _low64(), dst, off);
+    }
+
+    /**
+     * Writes {@link #toStringSortableBase64URLSafe()} as ascii bytes into the
+     * given array without allocating.
+     * 
+     * @return number of bytes written, always 22
+     */
+    public int writeTo(byte[] dst, int off) {
+        return Base64Mod.encode128(_high64(), _low64(), dst, off);
+    }
+
+    /**
+     * Appends {@link #toStringSortableBase64URLSafe()} without allocating.
+     * 
+     * @return the passed appendable
+     */
+    public Appendable appendTo(Appendable a) throws IOException {
+        return Base64Mod.append128(_high64(), _low64(), a);
+    }
+
+    /**
+     * @see #appendTo(Appendable)
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        return Base64Mod.append128(_high64(), _low64(), sb);
     }
 
     /**
@@ -305,38 +491,100 @@ public class ShardableObjectIdWithMoPrefix implements
      */
     @Deprecated
     public String toStringBase64URLSafe() {
-        return Base64Mod.encodeToString(toByteArray());
+        return toStringSortableBase64URLSafe();
     }
 
     public byte[] toByteArray() {
-        byte b[] = new byte[16];
-        ByteBuffer bb = ByteBuffer.wrap(b);
-        // by default BB is big endian like we need
+        return toByteArray(new byte[16], 0);
+    }
+
+    /**
+     * Writes the 16 bytes of {@link #toByteArray()} starting at offset.
+     * 
+     * @return the passed array
+     * @throws IllegalArgumentException
+     *             if less than 16 bytes are available from offset
+     */
+    public byte[] toByteArray(byte[] dst, int offset) {
+        if (offset < 0 || dst.length - offset < 16)
+            throw new IllegalArgumentException("need 16 bytes");
         // Georg: need to shift month a bit so that all bits
         // stay in the first 5 characters after base64 encoding
-        bb.putInt(_month << 2);
-        bb.putInt(_machine);
-        bb.putInt(_time);
-        bb.putInt(_inc);
-        return b;
+        ShardableObjectId._writeInt(_month << 2, dst, offset);
+        ShardableObjectId._writeInt(_machine, dst, offset + 4);
+        ShardableObjectId._writeInt(_time, dst, offset + 8);
+        ShardableObjectId._writeInt(_inc, dst, offset + 12);
+        return dst;
     }
 
-    static String _pos(String s, int p) {
-        return s.substring(p * 2, (p * 2) + 2);
+    /**
+     * @return shifted month and machine, the first 8 bytes of
+     *         {@link #toByteArray()}
+     */
+    long _high64() {
+        return ((long) (_month << 2) << 32) | (_machine & 0xFFFFFFFFL);
     }
 
+    /**
+     * @return time and inc, the last 8 bytes of {@link #toByteArray()}
+     */
+    long _low64() {
+        return ((long) _time << 32) | (_inc & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes the 16 bytes of {@link #toByteArray()} at the buffer's position,
+     * advancing it. Big endian regardless of the buffer's byte order. For the
+     * encoded string form use {@link #writeTo(byte[], int)} or
+     * {@link #appendTo(Appendable)}.
+     * 
+     * @return the passed buffer
+     * @throws IllegalArgumentException
+     *             if less than 16 bytes remain
+     */
+    public ByteBuffer writeTo(ByteBuffer bb) {
+        if (bb.remaining() < 16)
+            throw new IllegalArgumentException("need 16 bytes");
+        if (bb.order() == ByteOrder.LITTLE_ENDIAN) {
+            bb.putInt(Integer.reverseBytes(_month << 2));
+            bb.putInt(Integer.reverseBytes(_machine));
+            bb.putInt(Integer.reverseBytes(_time));
+            bb.putInt(Integer.reverseBytes(_inc));
+        } else {
+            bb.putInt(_month << 2);
+            bb.putInt(_machine);
+            bb.putInt(_time);
+            bb.putInt(_inc);
+        }
+        return bb;
+    }
+
+    /**
+     * Source byte of each target byte when converting between babble and
+     * mongod hex, the same in both directions.
+     */
+    private static final int[] BABBLE_PERMUTATION = { 7, 6, 5, 4, 3, 2, 1, 0,
+            15, 14, 13, 12, 11, 10, 9, 8 };
+
+    /**
+     * Converts the babble hex form to the mongod hex form and back. Nibble
+     * pairs are shuffled in a single pass without substrings.
+     * 
+     * @throws IllegalArgumentException
+     *             if the string is not 32 hex digits
+     */
     public static String babbleToMongod(String b) {
-        if (!isValid(b))
+        if (b == null || b.length() != 32 || !HexCodec.isHex(b, 0, 32))
             throw new IllegalArgumentException("invalid shardable object id: "
                     + b);
 
-        StringBuilder buf = new StringBuilder(32);
-        for (int i = 7; i >= 0; i--)
-            buf.append(_pos(b, i));
-        for (int i = 15; i >= 8; i--)
-            buf.append(_pos(b, i));
-
-        return buf.toString();
+        char[] buf = new char[32];
+        for (int i = 0; i < BABBLE_PERMUTATION.length; i++) {
+            int from = BABBLE_PERMUTATION[i] * 2;
+            buf[i * 2] = b.charAt(from);
+            buf[i * 2 + 1] = b.charAt(from + 1);
+        }
+        return new String(buf);
     }
 
     @Override
@@ -437,9 +685,10 @@ public class ShardableObjectIdWithMoPrefix implements
      * loader
      * 
      * @return
+     * @see MachineIdProviders#setProvider(MachineIdProvider)
      */
     public static int getGenMachineId() {
-        return ObjectId.getGenMachineId();
+        return MachineIdProviders.getMachineId();
     }
 
     /**
@@ -448,7 +697,54 @@ public class ShardableObjectIdWithMoPrefix implements
      * @return
      */
     public static int getCurrentInc() {
-        return _nextInc.get();
+        return _nextInc.current();
+    }
+
+    /**
+     * Sets how many incs each generating thread leases from the shared counter
+     * at once. 1, the default, takes every inc from the shared counter. Larger
+     * blocks remove contention between many generating threads, at the price
+     * of incs no longer following call order across threads.
+     * 
+     * @throws IllegalArgumentException
+     *             if blockSize is less than 1
+     */
+    public static void setIncBlockSize(int blockSize) {
+        _nextInc.setBlockSize(blockSize);
+    }
+
+    public static int getIncBlockSize() {
+        return _nextInc.getBlockSize();
+    }
+
+    /**
+     * Sets the time source of generated ids, eg. {@link IdClocks#cached(long)}
+     * to avoid a clock call per id or {@link IdClocks#fixed(long)} in tests.
+     * Defaults to {@link IdClocks#system()}.
+     */
+    public static void setClock(IdClock clock) {
+        if (clock == null)
+            throw new IllegalArgumentException("clock is null");
+        _clock = clock;
+    }
+
+    public static IdClock getClock() {
+        return _clock;
+    }
+
+    /**
+     * Spreads the ids of this process over 2^bits machine ids within each
+     * month, see {@link ShardableObjectId#setPrefixSpreadBits(int)}.
+     * 
+     * @throws IllegalArgumentException
+     *             if bits is out of range or the machine id uses the top bits
+     */
+    public static void setPrefixSpreadBits(int bits) {
+        _spreadBits = ShardableObjectId._checkSpreadBits(bits);
+    }
+
+    public static int getPrefixSpreadBits() {
+        return _spreadBits;
     }
 
     final int _month;
@@ -467,7 +763,10 @@ public class ShardableObjectIdWithMoPrefix implements
         return z;
     }
 
-    private static AtomicInteger _nextInc = new AtomicInteger(
-            (new java.util.Random()).nextInt());
+    private static final IncCounter _nextInc = new IncCounter();
+
+    private static volatile IdClock _clock = IdClocks.system();
+
+    private static volatile int _spreadBits;
 
 }
@@ -0,0 +1,182 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Growable array of {@link ShardableObjectIdWithMoPrefix}s packed into an
+ * <code>int[]</code>, 4 ints (16 bytes) per id instead of an object and a
+ * reference. Ints are stored as month, machine, time, inc - the order of
+ * {@link ShardableObjectIdWithMoPrefix#compareTo(ShardableObjectIdWithMoPrefix)}.
+ * <p>
+ * Not thread safe.
+ * </p>
+ */
+public class ShardableObjectIdWithMoPrefixArray extends PackedIdArray implements
+        ShardableObjectIdWithMoPrefix.IdSink {
+
+    private static final int STRIDE = 4;
+
+    public ShardableObjectIdWithMoPrefixArray() {
+        this(16);
+    }
+
+    public ShardableObjectIdWithMoPrefixArray(int initialCapacity) {
+        super(STRIDE, initialCapacity);
+    }
+
+    public void add(ShardableObjectIdWithMoPrefix id) {
+        add(id._month, id._machine, id._time, id._inc);
+    }
+
+    public void add(int month, int machine, int time, int inc) {
+        int o = append();
+        data[o] = month;
+        data[o + 1] = machine;
+        data[o + 2] = time;
+        data[o + 3] = inc;
+    }
+
+    /**
+     * Same as add, lets the array be the target of
+     * {@link ShardableObjectIdWithMoPrefix#generate(int, ShardableObjectIdWithMoPrefix.IdSink)}.
+     */
+    public void accept(int month, int machine, int time, int inc) {
+        add(month, machine, time, inc);
+    }
+
+    public void set(int index, ShardableObjectIdWithMoPrefix id) {
+        int o = offset(index);
+        data[o] = id._month;
+        data[o + 1] = id._machine;
+        data[o + 2] = id._time;
+        data[o + 3] = id._inc;
+    }
+
+    public ShardableObjectIdWithMoPrefix get(int index) {
+        int o = offset(index);
+        return new ShardableObjectIdWithMoPrefix(high64(o), low64(o));
+    }
+
+    /**
+     * Copies the id at index into the holder without allocating.
+     * 
+     * @param holder
+     *            receives month, machine, time, inc at holderOffset
+     * @return the holder
+     */
+    public int[] get(int index, int[] holder, int holderOffset) {
+        System.arraycopy(data, offset(index), holder, holderOffset, STRIDE);
+        return holder;
+    }
+
+    public int getMonth(int index) {
+        return data[offset(index)];
+    }
+
+    public int getMachine(int index) {
+        return data[offset(index) + 1];
+    }
+
+    public int getTimeSecond(int index) {
+        return data[offset(index) + 2];
+    }
+
+    public int getInc(int index) {
+        return data[offset(index) + 3];
+    }
+
+    /**
+     * Binary search on a {@link #sort() sorted} array.
+     * 
+     * @return index of the id or <code>-(insertion point) - 1</code> like
+     *         {@link java.util.Arrays#binarySearch(int[], int)}
+     */
+    public int binarySearch(ShardableObjectIdWithMoPrefix key) {
+        return binarySearch(key._month, key._machine, key._time, key._inc);
+    }
+
+    public int binarySearch(int month, int machine, int time, int inc) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int o = mid * STRIDE;
+            int c = compareUnsigned(data[o], month);
+            if (c == 0) {
+                c = compareUnsigned(data[o + 1], machine);
+                if (c == 0) {
+                    c = compareUnsigned(data[o + 2], time);
+                    if (c == 0)
+                        c = compareUnsigned(data[o + 3], inc);
+                }
+            }
+            if (c < 0)
+                lo = mid + 1;
+            else if (c > 0)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -(lo + 1);
+    }
+
+    /**
+     * @return same as
+     *         {@link ShardableObjectIdWithMoPrefix#toStringSortableBase64URLSafe()}
+     *         for the id at index
+     */
+    public String encodeToString(int index) {
+        int o = offset(index);
+        return Base64Mod.encode128ToString(high64(o), low64(o));
+    }
+
+    /**
+     * Writes all ids in sortable base64 back to back, 22 chars each.
+     * 
+     * @return number of chars written
+     */
+    public int encode(char[] target, int targetOffset) {
+        int len = _length(size, Base64Mod.ENCODED_128_BITS_LENGTH);
+        if (targetOffset < 0 || target.length - targetOffset < len)
+            throw new IllegalArgumentException("target needs " + len
+                    + " chars from offset " + targetOffset);
+        int pos = targetOffset;
+        for (int o = 0; o < size * STRIDE; o += STRIDE) {
+            pos += Base64Mod.encode128(high64(o), low64(o), target, pos);
+        }
+        return len;
+    }
+
+    /**
+     * Appends count ids read from back to back sortable base64, as written by
+     * {@link #encode(char[], int)}.
+     * 
+     * @throws IllegalArgumentException
+     *             on malformed input, ids before the malformed one are kept
+     */
+    public void decode(CharSequence in, int offset, int count) {
+        int len = _length(count, Base64Mod.ENCODED_128_BITS_LENGTH);
+        if (offset < 0 || count < 0 || in.length() - offset < len)
+            throw new IllegalArgumentException("need " + len
+                    + " chars from offset " + offset);
+        ensureCapacity(size + count);
+        int end = offset + len;
+        for (int pos = offset; pos < end; pos += Base64Mod.ENCODED_128_BITS_LENGTH) {
+            long high = Base64Mod.decodeHigh64(in, pos);
+            long low = Base64Mod.decode128Low64(in, pos);
+            add((int) (high >> 32) >> 2, (int) high, (int) (low >>> 32),
+                    (int) low);
+        }
+    }
+
+    private long high64(int o) {
+        return ((long) (data[o] << 2) << 32) | (data[o + 1] & 0xFFFFFFFFL);
+    }
+
+    private long low64(int o) {
+        return ((long) data[o + 2] << 32) | (data[o + 3] & 0xFFFFFFFFL);
+    }
+
+}
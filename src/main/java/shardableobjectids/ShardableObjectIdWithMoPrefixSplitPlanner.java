@@ -0,0 +1,77 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.util.Random;
+
+/**
+ * Plans split points of {@link ShardableObjectIdWithMoPrefix} ranges from a
+ * sample of ids, eg. to pre-split a collection before a bulk load. See
+ * {@link SplitPlanner} for the sketch.
+ */
+public class ShardableObjectIdWithMoPrefixSplitPlanner extends
+        SplitPlanner<ShardableObjectIdWithMoPrefixArray> {
+
+    public ShardableObjectIdWithMoPrefixSplitPlanner(int sampleSize) {
+        this(sampleSize, new Random());
+    }
+
+    public ShardableObjectIdWithMoPrefixSplitPlanner(int sampleSize,
+            Random random) {
+        super(new ShardableObjectIdWithMoPrefixArray(
+                Math.max(0, Math.min(sampleSize, 1024))),
+                sampleSize, random);
+    }
+
+    public void add(ShardableObjectIdWithMoPrefix id) {
+        add(id._month, id._machine, id._time, id._inc);
+    }
+
+    public void add(int month, int machine, int time, int inc) {
+        int o = slot();
+        if (o >= 0) {
+            int[] d = sample().data;
+            d[o] = month;
+            d[o + 1] = machine;
+            d[o + 2] = time;
+            d[o + 3] = inc;
+        }
+    }
+
+    public void addAll(ShardableObjectIdWithMoPrefixArray ids) {
+        for (int i = 0; i < ids.size(); i++) {
+            add(ids.getMonth(i), ids.getMachine(i), ids.getTimeSecond(i),
+                    ids.getInc(i));
+        }
+    }
+
+    /**
+     * @return the 16 byte big endian keys of {@link #splitPoints(int)}
+     */
+    public byte[][] splitPointBytes(int chunks) {
+        ShardableObjectIdWithMoPrefixArray points = splitPoints(chunks);
+        byte[][] keys = new byte[points.size()][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = points.get(i).toByteArray();
+        }
+        return keys;
+    }
+
+    /**
+     * @return the sortable base64 keys of {@link #splitPoints(int)}
+     */
+    public String[] splitPointStrings(int chunks) {
+        ShardableObjectIdWithMoPrefixArray points = splitPoints(chunks);
+        String[] keys = new String[points.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = points.encodeToString(i);
+        }
+        return keys;
+    }
+
+    @Override
+    ShardableObjectIdWithMoPrefixArray newArray(int capacity) {
+        return new ShardableObjectIdWithMoPrefixArray(capacity);
+    }
+}
@@ -0,0 +1,277 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Like {@link ShardableObjectIdWithMoPrefix}, but prefixed with the bucket of
+ * a pluggable {@link TimeBucket} instead of the month, so the actively
+ * written part of an index can be sized to the working set: an hour, a day,
+ * an ISO week, a month or any fixed window.
+ * <p>
+ * Consists of 16 bytes: bucket, machine, time, inc, 4 bytes each, big endian.
+ * The ids, their bytes and their sortable base64 strings all sort by bucket
+ * first. The bucket function is not part of the id; use one per collection.
+ */
+public class ShardableObjectIdWithTimeBucket implements
+        Comparable<ShardableObjectIdWithTimeBucket>, java.io.Serializable {
+
+    private static final long serialVersionUID = -6409958622817318861L;
+
+    /**
+     * Gets a new id in the current bucket of the given bucket function.
+     */
+    public static ShardableObjectIdWithTimeBucket get(TimeBucket bucket) {
+        return new ShardableObjectIdWithTimeBucket(bucket,
+                (int) (_clock.currentTimeMillis() / 1000));
+    }
+
+    /**
+     * @return the smallest id of the bucket, for range queries
+     */
+    public static ShardableObjectIdWithTimeBucket lowerBound(int bucket) {
+        return new ShardableObjectIdWithTimeBucket(bucket, 0, 0, 0);
+    }
+
+    /**
+     * @return the largest id of the bucket, for range queries including it
+     */
+    public static ShardableObjectIdWithTimeBucket upperBound(int bucket) {
+        return new ShardableObjectIdWithTimeBucket(bucket, -1, -1, -1);
+    }
+
+    /**
+     * Parses the sortable base64 or hex form in a single pass over the input,
+     * without exceptions for malformed input.
+     *
+     * @return the id or <code>null</code> if the range is not a valid id
+     */
+    public static ShardableObjectIdWithTimeBucket tryParse(CharSequence s,
+            int offset, int len) {
+        FixedWidthDecoder d = new FixedWidthDecoder();
+        if (!d.decode(s, offset, len, 128))
+            return null;
+        return new ShardableObjectIdWithTimeBucket((int) (d.high >>> 32),
+                (int) d.high, (int) (d.low >>> 32), (int) d.low);
+    }
+
+    public static ShardableObjectIdWithTimeBucket tryParse(CharSequence s) {
+        return s == null ? null : tryParse(s, 0, s.length());
+    }
+
+    public ShardableObjectIdWithTimeBucket(int bucket, int machine, int time,
+            int inc) {
+        _bucket = bucket;
+        _machine = machine;
+        _time = time;
+        _inc = inc;
+    }
+
+    /**
+     * Creates a new id of this machine for the given time.
+     */
+    public ShardableObjectIdWithTimeBucket(TimeBucket bucket, Date time) {
+        this(bucket, (int) (time.getTime() / 1000));
+    }
+
+    private ShardableObjectIdWithTimeBucket(TimeBucket bucket, int time) {
+        // the time part is unsigned, as in the other id types
+        this(bucket.bucketOf(time & 0xFFFFFFFFL), ShardableObjectId
+                .getGenMachineId(), time, _nextInc.next());
+    }
+
+    /**
+     * Parses the sortable base64 or hex form.
+     *
+     * @throws IllegalArgumentException
+     *             if the string is not a valid id
+     */
+    public ShardableObjectIdWithTimeBucket(String s) {
+        ShardableObjectIdWithTimeBucket id = tryParse(s);
+        if (id == null)
+            throw new IllegalArgumentException(
+                    "invalid ShardableObjectIdWithTimeBucket [" + s + "]");
+        _bucket = id._bucket;
+        _machine = id._machine;
+        _time = id._time;
+        _inc = id._inc;
+    }
+
+    /**
+     * Reads the 16 bytes of {@link #toByteArray()} starting at offset.
+     *
+     * @throws IllegalArgumentException
+     *             if less than 16 bytes are available from offset
+     */
+    public ShardableObjectIdWithTimeBucket(byte[] src, int offset) {
+        if (offset < 0 || src.length - offset < 16)
+            throw new IllegalArgumentException("need 16 bytes");
+        _bucket = ShardableObjectId._readInt(src, offset);
+        _machine = ShardableObjectId._readInt(src, offset + 4);
+        _time = ShardableObjectId._readInt(src, offset + 8);
+        _inc = ShardableObjectId._readInt(src, offset + 12);
+    }
+
+    public ShardableObjectIdWithTimeBucket(byte[] b) {
+        this(b, 0);
+    }
+
+    public byte[] toByteArray() {
+        return toByteArray(new byte[16], 0);
+    }
+
+    /**
+     * Writes the 16 bytes of {@link #toByteArray()} starting at offset.
+     *
+     * @return the passed array
+     * @throws IllegalArgumentException
+     *             if less than 16 bytes are available from offset
+     */
+    public byte[] toByteArray(byte[] dst, int offset) {
+        if (offset < 0 || dst.length - offset < 16)
+            throw new IllegalArgumentException("need 16 bytes");
+        ShardableObjectId._writeInt(_bucket, dst, offset);
+        ShardableObjectId._writeInt(_machine, dst, offset + 4);
+        ShardableObjectId._writeInt(_time, dst, offset + 8);
+        ShardableObjectId._writeInt(_inc, dst, offset + 12);
+        return dst;
+    }
+
+    public String toStringSortableBase64URLSafe() {
+        return Base64Mod.encode128ToString(_high64(), _low64());
+    }
+
+    /**
+     * Writes {@link #toStringSortableBase64URLSafe()} into the given array
+     * without allocating.
+     *
+     * @return number of chars written, always 22
+     */
+    public int writeTo(char[] dst, int off) {
+        return Base64Mod.encode128(_high64(), _low64(), dst, off);
+    }
+
+    /**
+     * Writes {@link #toStringSortableBase64URLSafe()} as ascii bytes into the
+     * given array without allocating.
+     *
+     * @return number of bytes written, always 22
+     */
+    public int writeTo(byte[] dst, int off) {
+        return Base64Mod.encode128(_high64(), _low64(), dst, off);
+    }
+
+    public Appendable appendTo(Appendable a) throws IOException {
+        return Base64Mod.append128(_high64(), _low64(), a);
+    }
+
+    public StringBuilder appendTo(StringBuilder sb) {
+        return Base64Mod.append128(_high64(), _low64(), sb);
+    }
+
+    public String toStringMongod() {
+        char[] buf = new char[32];
+        HexCodec.encodeInt(_bucket, buf, 0);
+        HexCodec.encodeInt(_machine, buf, 8);
+        HexCodec.encodeInt(_time, buf, 16);
+        HexCodec.encodeInt(_inc, buf, 24);
+        return new String(buf);
+    }
+
+    @Override
+    public String toString() {
+        return toStringSortableBase64URLSafe();
+    }
+
+    /**
+     * Ordering is by bucket, machine, time, inc, all unsigned.
+     */
+    public int compareTo(ShardableObjectIdWithTimeBucket id) {
+        int x = Integer.compareUnsigned(_bucket, id._bucket);
+        if (x != 0)
+            return x;
+        x = Integer.compareUnsigned(_machine, id._machine);
+        if (x != 0)
+            return x;
+        x = Integer.compareUnsigned(_time, id._time);
+        if (x != 0)
+            return x;
+        return Integer.compareUnsigned(_inc, id._inc);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof ShardableObjectIdWithTimeBucket))
+            return false;
+        ShardableObjectIdWithTimeBucket other = (ShardableObjectIdWithTimeBucket) o;
+        return _bucket == other._bucket && _machine == other._machine
+                && _time == other._time && _inc == other._inc;
+    }
+
+    @Override
+    public int hashCode() {
+        return IdHashTable.hash(_bucket, _machine, _time, _inc);
+    }
+
+    public int getBucket() {
+        return _bucket;
+    }
+
+    public int getMachine() {
+        return _machine;
+    }
+
+    /**
+     * Gets the time of this ID, in milliseconds
+     */
+    public long getTime() {
+        return _time * 1000L;
+    }
+
+    /**
+     * Gets the time of this ID, in seconds
+     */
+    public int getTimeSecond() {
+        return _time;
+    }
+
+    public int getInc() {
+        return _inc;
+    }
+
+    /**
+     * Sets the time source of generated ids, defaults to
+     * {@link IdClocks#system()}.
+     */
+    public static void setClock(IdClock clock) {
+        if (clock == null)
+            throw new IllegalArgumentException("clock is null");
+        _clock = clock;
+    }
+
+    public static IdClock getClock() {
+        return _clock;
+    }
+
+    long _high64() {
+        return ((long) _bucket << 32) | (_machine & 0xFFFFFFFFL);
+    }
+
+    long _low64() {
+        return ((long) _time << 32) | (_inc & 0xFFFFFFFFL);
+    }
+
+    final int _bucket;
+    final int _machine;
+    final int _time;
+    final int _inc;
+
+    private static final IncCounter _nextInc = new IncCounter();
+
+    private static volatile IdClock _clock = IdClocks.system();
+}
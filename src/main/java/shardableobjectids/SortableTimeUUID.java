@@ -0,0 +1,149 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.util.UUID;
+
+/**
+ * A time uuid held in sortable form: the msb reordered to time hi, mid, low
+ * as in {@link TimeUUIDUtils#toSortableBytes(UUID)}, and the lsb. Ordering is
+ * two unsigned long compares, by time first, and matches the order of the
+ * sortable bytes and of {@link #toString()}.
+ */
+public final class SortableTimeUUID implements Comparable<SortableTimeUUID>,
+        java.io.Serializable {
+
+    private static final long serialVersionUID = 2887406617457014217L;
+
+    private final long _sortableMsb;
+    private final long _lsb;
+
+    /**
+     * @param sortableMsb
+     *            see {@link TimeUUIDUtils#toSortableMsb(long)}
+     */
+    public SortableTimeUUID(long sortableMsb, long lsb) {
+        _sortableMsb = sortableMsb;
+        _lsb = lsb;
+    }
+
+    /**
+     * Gets a new time uuid, see {@link TimeUUID#get()}.
+     */
+    public static SortableTimeUUID get() {
+        return new SortableTimeUUID(
+                TimeUUIDUtils.toSortableMsb(TimeUUID.newTime()),
+                ClockSeqAndNodeProviders.getClockSeqAndNode());
+    }
+
+    public static SortableTimeUUID fromUUID(UUID uuid) {
+        return new SortableTimeUUID(TimeUUIDUtils.toSortableMsb(uuid
+                .getMostSignificantBits()), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Reads the 16 bytes of {@link TimeUUIDUtils#toSortableBytes(UUID)}.
+     */
+    public static SortableTimeUUID fromSortableBytes(byte[] from, int offset) {
+        if (from.length - offset < 16)
+            throw new IllegalArgumentException("need 16 bytes");
+        return new SortableTimeUUID(IdComparators.readLong(from, offset),
+                IdComparators.readLong(from, offset + 8));
+    }
+
+    /**
+     * Parses the 22 char form of {@link #toString()}.
+     * 
+     * @throws IllegalArgumentException
+     *             if the string is no sortable base64 time uuid
+     */
+    public static SortableTimeUUID fromSortableUrlSafeBase64(CharSequence s,
+            int offset) {
+        if (s.length() - offset < 22)
+            throw new IllegalArgumentException("need 22 chars");
+        return new SortableTimeUUID(Base64Mod.decodeHigh64(s, offset),
+                Base64Mod.decode128Low64(s, offset));
+    }
+
+    public static SortableTimeUUID fromSortableUrlSafeBase64(CharSequence s) {
+        return fromSortableUrlSafeBase64(s, 0);
+    }
+
+    public UUID toUUID() {
+        return new UUID(TimeUUIDUtils.fromSortableMsb(_sortableMsb), _lsb);
+    }
+
+    public byte[] toSortableBytes() {
+        return toSortableBytes(new byte[16], 0);
+    }
+
+    public byte[] toSortableBytes(byte[] to, int offset) {
+        if (to.length - offset < 16)
+            throw new IllegalArgumentException("need 16 bytes");
+        ShardableObjectId._writeInt((int) (_sortableMsb >>> 32), to, offset);
+        ShardableObjectId._writeInt((int) _sortableMsb, to, offset + 4);
+        ShardableObjectId._writeInt((int) (_lsb >>> 32), to, offset + 8);
+        ShardableObjectId._writeInt((int) _lsb, to, offset + 12);
+        return to;
+    }
+
+    /**
+     * Writes the 22 chars of {@link #toString()}.
+     * 
+     * @return number of chars written, always 22
+     */
+    public int writeTo(char[] to, int offset) {
+        return Base64Mod.encode128(_sortableMsb, _lsb, to, offset);
+    }
+
+    public long getSortableMsb() {
+        return _sortableMsb;
+    }
+
+    public long getMostSignificantBits() {
+        return TimeUUIDUtils.fromSortableMsb(_sortableMsb);
+    }
+
+    public long getLeastSignificantBits() {
+        return _lsb;
+    }
+
+    /**
+     * @return 100ns intervals since 1582-10-15, like {@link UUID#timestamp()}
+     */
+    public long timestamp() {
+        return _sortableMsb & 0x0FFFFFFFFFFFFFFFL;
+    }
+
+    @Override
+    public int compareTo(SortableTimeUUID o) {
+        int x = Long.compareUnsigned(_sortableMsb, o._sortableMsb);
+        return x != 0 ? x : Long.compareUnsigned(_lsb, o._lsb);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof SortableTimeUUID))
+            return false;
+        SortableTimeUUID other = (SortableTimeUUID) o;
+        return _sortableMsb == other._sortableMsb && _lsb == other._lsb;
+    }
+
+    @Override
+    public int hashCode() {
+        long x = _sortableMsb ^ _lsb;
+        return (int) (x >> 32) ^ (int) x;
+    }
+
+    /**
+     * @return the 22 char sortable url safe base64 form, see
+     *         {@link TimeUUIDUtils#toSortableUrlSafeBase64(UUID)}
+     */
+    @Override
+    public String toString() {
+        return Base64Mod.encode128ToString(_sortableMsb, _lsb);
+    }
+}
@@ -0,0 +1,101 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.util.Random;
+
+/**
+ * Plans chunk split points from a stream of ids: keeps a fixed size uniform
+ * random sample (reservoir sampling) as quantile sketch and takes the split
+ * points at the even quantiles of the sample in the ids' sort order. With a
+ * sample of k ids a chunk's share is off by about 1/sqrt(k) of all ids. Base
+ * of {@link ShardableObjectIdSplitPlanner} and
+ * {@link ShardableObjectIdWithMoPrefixSplitPlanner}.
+ * 
+ * @param <A>
+ *            packed array type of the sample and the split points
+ */
+abstract class SplitPlanner<A extends PackedIdArray> {
+
+    private final A sample;
+    private final int sampleSize;
+    private final Random random;
+    private long count;
+
+    SplitPlanner(A sample, int sampleSize, Random random) {
+        if (sampleSize < 1)
+            throw new IllegalArgumentException("sample size must be positive: "
+                    + sampleSize);
+        this.sample = sample;
+        this.sampleSize = sampleSize;
+        this.random = random;
+    }
+
+    /**
+     * @return number of ids added
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return number of ids kept in the sample
+     */
+    public int sampleCount() {
+        return sample.size();
+    }
+
+    /**
+     * Counts a new id and picks where it goes in the sample.
+     * 
+     * @return offset in the sample's data to write the id to, or -1 to drop
+     *         it
+     */
+    int slot() {
+        count++;
+        if (sample.size() < sampleSize)
+            return sample.append();
+        long j = (long) (random.nextDouble() * count);
+        return j < sampleSize ? sample.offset((int) j) : -1;
+    }
+
+    A sample() {
+        return sample;
+    }
+
+    abstract A newArray(int capacity);
+
+    /**
+     * Split points for the given number of chunks, strictly increasing, for
+     * {@link ShardRouter} or {@link MoPrefixShardRouter} range tables or
+     * pre-splitting. Fewer than chunks - 1 are returned if the sample has too
+     * few distinct ids.
+     * 
+     * @throws IllegalArgumentException
+     *             if chunks is less than 1
+     */
+    public A splitPoints(int chunks) {
+        if (chunks < 1)
+            throw new IllegalArgumentException("need at least 1 chunk: "
+                    + chunks);
+        sample.sort();
+        int n = sample.size();
+        A points = newArray(Math.min(chunks - 1, n));
+        if (n == 0)
+            return points;
+        // a split point must be above the previous one, or above the
+        // smallest sampled id, else it would start an empty chunk
+        int previous = 0;
+        for (int k = 1; k < chunks; k++) {
+            int index = (int) ((long) k * n / chunks);
+            if (sample.compare(previous, index) >= 0)
+                continue;
+            int o = points.append();
+            System.arraycopy(sample.data, sample.offset(index), points.data,
+                    o, sample.stride);
+            previous = index;
+        }
+        return points;
+    }
+}
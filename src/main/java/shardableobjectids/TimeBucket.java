@@ -0,0 +1,28 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+
+/**
+ * Maps time to the bucket prefix of {@link ShardableObjectIdWithTimeBucket}.
+ * Buckets must increase with time (compared unsigned) so ids sort by bucket
+ * first. Implementations are in {@link TimeBuckets}.
+ */
+public interface TimeBucket {
+
+    /**
+     * @return the bucket of the given second since 1970 UTC
+     */
+    int bucketOf(long epochSecond);
+
+    /**
+     * @return the first second of the bucket
+     */
+    long startSecond(int bucket);
+
+    /**
+     * @return the first second after the bucket
+     */
+    long endSecond(int bucket);
+}
@@ -0,0 +1,123 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * {@link TimeBucket} implementations. Fixed windows are pure arithmetic,
+ * months use the cached current month of a {@link MonthResolver}; neither
+ * allocates per new id.
+ */
+public final class TimeBuckets {
+
+    private static final long HOUR = 3600;
+
+    private static final long DAY = 24 * HOUR;
+
+    /**
+     * Only a helper.
+     */
+    private TimeBuckets() {
+
+    }
+
+    /**
+     * Hours since 1970 UTC.
+     */
+    public static TimeBucket hours() {
+        return fixed(HOUR, 0);
+    }
+
+    /**
+     * Days since 1970 UTC.
+     */
+    public static TimeBucket days() {
+        return fixed(DAY, 0);
+    }
+
+    /**
+     * ISO weeks (Monday to Sunday, UTC) since the week of 1970-01-01.
+     */
+    public static TimeBucket isoWeeks() {
+        // 1969-12-29 was a Monday
+        return fixed(7 * DAY, -3 * DAY);
+    }
+
+    /**
+     * Months as yyyymm, eg. 201203, in UTC like
+     * {@link ShardableObjectIdWithMoPrefix}.
+     */
+    public static TimeBucket months() {
+        return months(ZoneOffset.UTC);
+    }
+
+    /**
+     * Months as yyyymm, eg. 201203, in the given zone.
+     */
+    public static TimeBucket months(ZoneId zone) {
+        final MonthResolver resolver = zone.equals(ZoneOffset.UTC)
+                ? MonthResolver.UTC : new MonthResolver(zone);
+        return new TimeBucket() {
+            @Override
+            public int bucketOf(long epochSecond) {
+                return resolver.monthOfSecond(epochSecond);
+            }
+
+            @Override
+            public long startSecond(int bucket) {
+                return yearMonth(bucket).atDay(1)
+                        .atStartOfDay(resolver.getZone()).toEpochSecond();
+            }
+
+            @Override
+            public long endSecond(int bucket) {
+                return yearMonth(bucket).plusMonths(1).atDay(1)
+                        .atStartOfDay(resolver.getZone()).toEpochSecond();
+            }
+        };
+    }
+
+    /**
+     * Windows of windowSeconds each, counted from originSecond. Times before
+     * the origin have no bucket.
+     * 
+     * @throws IllegalArgumentException
+     *             if windowSeconds is less than 1
+     */
+    public static TimeBucket fixed(final long windowSeconds,
+            final long originSecond) {
+        if (windowSeconds < 1)
+            throw new IllegalArgumentException("window must be positive: "
+                    + windowSeconds);
+        return new TimeBucket() {
+            @Override
+            public int bucketOf(long epochSecond) {
+                long bucket = (epochSecond - originSecond) / windowSeconds;
+                if (epochSecond < originSecond || bucket > 0xFFFFFFFFL)
+                    throw new IllegalArgumentException("no bucket for second "
+                            + epochSecond);
+                return (int) bucket;
+            }
+
+            @Override
+            public long startSecond(int bucket) {
+                return originSecond + (bucket & 0xFFFFFFFFL) * windowSeconds;
+            }
+
+            @Override
+            public long endSecond(int bucket) {
+                return startSecond(bucket) + windowSeconds;
+            }
+        };
+    }
+
+    private static YearMonth yearMonth(int yyyymm) {
+        if (yyyymm % 100 < 1 || yyyymm % 100 > 12)
+            throw new IllegalArgumentException("not a yyyymm month: " + yyyymm);
+        return YearMonth.of(yyyymm / 100, yyyymm % 100);
+    }
+}
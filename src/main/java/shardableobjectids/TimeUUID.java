@@ -1,11 +1,10 @@
 package shardableobjectids;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.Random;
 import java.util.UUID;
-
-import com.eaio.util.lang.Hex;
-import com.eaio.uuid.UUIDGen;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 
@@ -41,10 +40,70 @@ public class TimeUUID {
      * Gets a new object id.
      * 
      * @return the new id
+     * @see ClockSeqAndNodeProviders#setProvider(ClockSeqAndNodeProvider)
      */
     public static java.util.UUID get() {
-        return new java.util.UUID(UUIDGen.newTime(),
-                UUIDGen.getClockSeqAndNode());
+        return new java.util.UUID(newTime(),
+                ClockSeqAndNodeProviders.getClockSeqAndNode());
+    }
+
+    /**
+     * The time and version half (msb) of a new time uuid. Lock free
+     * replacement for <code>UUIDGen.newTime()</code>: strictly increasing per
+     * JVM at 100ns resolution.
+     * 
+     * @see TimeUUIDUtils#createTime(long)
+     */
+    public static long newTime() {
+        return TimeUUIDUtils.createTime(nextTenthOfMicros());
+    }
+
+    /**
+     * Wall clock time may be off by this much before re-anchoring to
+     * <code>System.currentTimeMillis()</code>.
+     */
+    private static final long MAX_DRIFT_MILLIS = 1000;
+
+    /**
+     * {currentTimeMillis, nanoTime} read together.
+     */
+    private static volatile long[] _anchor = { System.currentTimeMillis(),
+            System.nanoTime() };
+
+    /**
+     * Last handed out time in 100ns since 1970.
+     */
+    private static final AtomicLong _lastTenthOfMicros = new AtomicLong();
+
+    /**
+     * The current time in 100ns intervals since 1970, strictly larger than
+     * the previous result. Runs ahead of the clock while called more than
+     * once per 100ns or after the wall clock was set back.
+     */
+    static long nextTenthOfMicros() {
+        long now = currentTenthOfMicros();
+        for (;;) {
+            long last = _lastTenthOfMicros.get();
+            long next = now > last ? now : last + 1;
+            if (_lastTenthOfMicros.compareAndSet(last, next))
+                return next;
+        }
+    }
+
+    /**
+     * currentTimeMillis with 100ns resolution taken from nanoTime.
+     */
+    private static long currentTenthOfMicros() {
+        long[] anchor = _anchor;
+        long millis = System.currentTimeMillis();
+        long nanos = System.nanoTime() - anchor[1];
+        long anchored = anchor[0] + nanos / 1000000;
+        if (Math.abs(anchored - millis) > MAX_DRIFT_MILLIS) {
+            anchor = new long[] { millis, System.nanoTime() };
+            _anchor = anchor;
+            return millis * 10000;
+        }
+        return anchor[0] * 10000 + nanos / 100;
     }
 
     public static UUID get(Date time, Random rand) {
@@ -53,7 +112,32 @@ public class TimeUUID {
     }
 
     public static String getAsSortableUrlSafeBase64() {
-        return TimeUUIDUtils.toSortableUrlSafeBase64(get());
+        return Base64Mod.encode128ToString(
+                TimeUUIDUtils.toSortableMsb(newTime()),
+                ClockSeqAndNodeProviders.getClockSeqAndNode());
+    }
+
+    /**
+     * Generates a new time uuid and writes its 22 char sortable url safe
+     * base64 form, without creating the uuid or any temporary array.
+     * 
+     * @return number of chars written, always 22
+     * @see TimeUUIDUtils#toSortableUrlSafeBase64(UUID)
+     */
+    public static int writeNewAsSortableUrlSafeBase64(char[] to, int offset) {
+        return Base64Mod.encode128(TimeUUIDUtils.toSortableMsb(newTime()),
+                ClockSeqAndNodeProviders.getClockSeqAndNode(), to, offset);
+    }
+
+    /**
+     * Same as {@link #writeNewAsSortableUrlSafeBase64(char[], int)}, writing
+     * ascii bytes.
+     * 
+     * @return number of bytes written, always 22
+     */
+    public static int writeNewAsSortableUrlSafeBase64(byte[] to, int offset) {
+        return Base64Mod.encode128(TimeUUIDUtils.toSortableMsb(newTime()),
+                ClockSeqAndNodeProviders.getClockSeqAndNode(), to, offset);
     }
 
     public static UUID parse(String s) {
@@ -61,39 +145,138 @@ public class TimeUUID {
     }
 
     /**
-     * Parses standard hex and sortable url safe base64
+     * Parses standard hex, with or without dashes, and sortable url safe
+     * base64. Decodes straight from the chars without intermediate strings.
      * 
      * @param s
      * @param offset
      * @param len
      * @return
+     * @throws IllegalArgumentException
+     *             if the range is not in one of the formats
      * @see TimeUUIDUtils#toSortableUrlSafeBase64(UUID)
      */
     public static UUID parse(CharSequence s, int offset, int len) {
-
-        // if (!isValid(s, offset, len))
-        // throw new IllegalArgumentException("invalid TimeUUID ["
-        // + s.subSequence(offset, offset + len) + "]");
-
-        UUID retval = null;
-        if (len == 32) {
-            long msb = Hex.parseLong(s.subSequence(offset, offset + len));
-            long lsb = Hex.parseLong(s.subSequence(offset + 16, offset + 32));
-            retval = new UUID(msb, lsb);
-        } else if (len == 36) {
-            long msb = Hex.parseLong(s.subSequence(offset, offset + len));
-            long lsb = Hex.parseLong(s.subSequence(offset + 19, offset + 36));
-            retval = new UUID(msb, lsb);
-        } else if (len == 22) {
-            retval = TimeUUIDUtils.fromSortableUrlSafeBase64(s, offset);
-        }
-
+        UUID retval = tryParse(s, offset, len);
         if (retval == null) {
+            if (s == null || offset < 0 || len < 0
+                    || offset > s.length() - len)
+                throw new IllegalArgumentException("Invalid range at offset "
+                        + offset + ", length " + len);
+            // only the token, the range may be part of a big buffer
+            CharSequence token = len > MAX_ERROR_TOKEN ? s.subSequence(offset,
+                    offset + MAX_ERROR_TOKEN) + "..." : s.subSequence(offset,
+                    offset + len);
             throw new IllegalArgumentException(
-                    "String not in expected format ["
-                            + s.subSequence(offset, offset + len) + "]");
+                    "String not in expected format [" + token + "] at offset "
+                            + offset + ", length " + len);
         }
         return retval;
     }
 
+    private static final int MAX_ERROR_TOKEN = 64;
+
+    /**
+     * Writes the 36 char dashed hex form of {@link UUID#toString()} without
+     * allocating.
+     * 
+     * @return number of chars written, always 36
+     * @throws IllegalArgumentException
+     *             if the target has less than 36 chars from offset
+     */
+    public static int format(UUID uuid, char[] to, int offset) {
+        if (offset < 0 || to.length - offset < 36)
+            throw new IllegalArgumentException("target needs 36 from offset "
+                    + offset + ", has " + to.length);
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        HexCodec.encodeInt((int) (msb >>> 32), to, offset);
+        to[offset + 8] = '-';
+        HexCodec.encodeShort((int) (msb >>> 16), to, offset + 9);
+        to[offset + 13] = '-';
+        HexCodec.encodeShort((int) msb, to, offset + 14);
+        to[offset + 18] = '-';
+        HexCodec.encodeShort((int) (lsb >>> 48), to, offset + 19);
+        to[offset + 23] = '-';
+        HexCodec.encodeShort((int) (lsb >>> 32), to, offset + 24);
+        HexCodec.encodeInt((int) lsb, to, offset + 28);
+        return 36;
+    }
+
+    /**
+     * Same as {@link #format(UUID, char[], int)}, appending to any
+     * {@link Appendable} without intermediate buffers.
+     */
+    public static Appendable format(UUID uuid, Appendable to)
+            throws IOException {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        for (int i = 0; i < 32; i++) {
+            if (i == 8 || i == 12 || i == 16 || i == 20)
+                to.append('-');
+            long word = i < 16 ? msb : lsb;
+            to.append(HexCodec.digitChar((int) (word >>> (60 - 4 * (i & 15)))));
+        }
+        return to;
+    }
+
+    /**
+     * {@link StringBuilder} variant of {@link #format(UUID, Appendable)},
+     * which cannot throw.
+     */
+    public static StringBuilder format(UUID uuid, StringBuilder to) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        for (int i = 0; i < 32; i++) {
+            if (i == 8 || i == 12 || i == 16 || i == 20)
+                to.append('-');
+            long word = i < 16 ? msb : lsb;
+            to.append(HexCodec.digitChar((int) (word >>> (60 - 4 * (i & 15)))));
+        }
+        return to;
+    }
+
+    public static UUID tryParse(CharSequence s) {
+        return s == null ? null : tryParse(s, 0, s.length());
+    }
+
+    /**
+     * Same formats as {@link #parse(CharSequence, int, int)}, but validates
+     * and decodes in a single pass and returns <code>null</code> instead of
+     * throwing for malformed input.
+     * 
+     * @return the uuid or <code>null</code>
+     */
+    public static UUID tryParse(CharSequence s, int offset, int len) {
+        if (!FixedWidthDecoder.validRange(s, offset, len))
+            return null;
+        if (len != 36) {
+            FixedWidthDecoder d = new FixedWidthDecoder();
+            if (!d.decode(s, offset, len, 128))
+                return null;
+            return new UUID(len == 22 ? TimeUUIDUtils.fromSortableMsb(d.high)
+                    : d.high, d.low);
+        }
+
+        // dashed hex, 128 bits shifted in from the right
+        long high = 0;
+        long low = 0;
+        int invalid = 0;
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(offset + i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-')
+                    return null;
+                continue;
+            }
+            int d = HexCodec.digit(c);
+            invalid |= d;
+            high = (high << 4) | (low >>> 60);
+            low = (low << 4) | d;
+        }
+        if (invalid < 0)
+            return null;
+        return new UUID(high, low);
+    }
+
 }
@@ -1,5 +1,6 @@
 package shardableobjectids;
 
+import java.io.IOException;
 import java.util.Random;
 import java.util.UUID;
 
@@ -10,71 +11,143 @@ public class TimeUUIDUtils {
     }
 
     public static byte[] toSortableBytes(UUID uuid, byte[] to, int offset) {
-        long msb = uuid.getMostSignificantBits();
+        long msb = toSortableMsb(uuid.getMostSignificantBits());
         long lsb = uuid.getLeastSignificantBits();
+        ShardableObjectId._writeInt((int) (msb >>> 32), to, offset);
+        ShardableObjectId._writeInt((int) msb, to, offset + 4);
+        ShardableObjectId._writeInt((int) (lsb >>> 32), to, offset + 8);
+        ShardableObjectId._writeInt((int) lsb, to, offset + 12);
+        return to;
+    }
 
-        // high
-        for (int i = 0; i < 2; i++) {
-            to[i] = (byte) (msb >>> 8 * (1 - i));
-        }
-        // mid
-        for (int i = 0; i < 2; i++) {
-            to[i + 2] = (byte) (msb >>> 8 * (3 - i));
-        }
-        // low
-        for (int i = 0; i < 4; i++) {
-            to[i + 4] = (byte) (msb >>> 8 * (7 - i));
-        }
+    public static UUID sortableBytesToUuid(byte[] from, int offset) {
+        return new UUID(fromSortableMsb(IdComparators.readLong(from, offset)),
+                IdComparators.readLong(from, offset + 8));
+    }
 
-        // second long:
-        for (int i = 0; i < 8; i++) {
-            to[i + 8] = (byte) (lsb >>> 8 * (7 - i));
-        }
+    /**
+     * Reorders the msb of a time uuid to time hi, mid, low - the first 8 bytes
+     * of {@link #toSortableBytes(UUID)} as a big endian long.
+     */
+    public static long toSortableMsb(long msb) {
+        return ((msb & 0xFFFFL) << 48) | ((msb & 0xFFFF0000L) << 16)
+                | (msb >>> 32);
+    }
 
-        return to;
+    /**
+     * Reverse of {@link #toSortableMsb(long)}.
+     */
+    public static long fromSortableMsb(long sortableMsb) {
+        return (sortableMsb << 32) | ((sortableMsb >>> 16) & 0xFFFF0000L)
+                | (sortableMsb >>> 48);
+    }
 
+    public static String toSortableUrlSafeBase64(UUID in) {
+        return Base64Mod.encode128ToString(
+                toSortableMsb(in.getMostSignificantBits()),
+                in.getLeastSignificantBits());
     }
 
-    public static UUID sortableBytesToUuid(byte[] from, int offset) {
-        long msb = 0;
-        long lsb = 0;
+    /**
+     * Same as {@link #toSortableUrlSafeBase64(UUID)} for the msb and lsb of a
+     * uuid, without creating it.
+     */
+    public static String toSortableUrlSafeBase64(long msb, long lsb) {
+        return Base64Mod.encode128ToString(toSortableMsb(msb), lsb);
+    }
 
-        // high
-        for (int i = 0; i < 2; i++) {
-            long t = from[offset + i];
-            msb |= (t & 0xFF) << 8 * (1 - i);
-        }
-        // mid
-        for (int i = 0; i < 2; i++) {
-            long t = from[offset + i + 2];
-            msb |= (t & 0xFF) << 8 * (3 - i);
-        }
-        // low
-        for (int i = 0; i < 4; i++) {
-            long t = from[offset + i + 4];
-            msb |= (t & 0xFF) << 8 * (7 - i);
-        }
+    /**
+     * Writes the 22 chars of {@link #toSortableUrlSafeBase64(long, long)}.
+     * 
+     * @return number of chars written, always 22
+     */
+    public static int writeSortableUrlSafeBase64(long msb, long lsb,
+            char[] to, int offset) {
+        return Base64Mod.encode128(toSortableMsb(msb), lsb, to, offset);
+    }
 
-        // second long:
-        for (int i = 0; i < 8; i++) {
-            long t = from[offset + i + 8];
-            lsb |= (t & 0xFF) << 8L * (7 - i);
-        }
+    /**
+     * Writes the 22 chars of {@link #toSortableUrlSafeBase64(long, long)} as
+     * ascii bytes.
+     * 
+     * @return number of bytes written, always 22
+     */
+    public static int writeSortableUrlSafeBase64(long msb, long lsb,
+            byte[] to, int offset) {
+        return Base64Mod.encode128(toSortableMsb(msb), lsb, to, offset);
+    }
+
+    /**
+     * The msb of the uuid encoded at offset by
+     * {@link #toSortableUrlSafeBase64(UUID)}, without creating the uuid.
+     */
+    public static long sortableUrlSafeBase64Msb(CharSequence from, int offset) {
+        return fromSortableMsb(Base64Mod.decodeHigh64(from, offset));
+    }
 
-        return new UUID(msb, lsb);
+    /**
+     * The lsb of the uuid encoded at offset by
+     * {@link #toSortableUrlSafeBase64(UUID)}, without creating the uuid.
+     */
+    public static long sortableUrlSafeBase64Lsb(CharSequence from, int offset) {
+        return Base64Mod.decode128Low64(from, offset);
     }
 
-    public static String toSortableUrlSafeBase64(UUID in) {
-        return toSortableUrlSafeBase64(in, new byte[16]);
+    public static long sortableUrlSafeBase64Msb(byte[] from, int offset) {
+        return fromSortableMsb(Base64Mod.decodeHigh64(from, offset));
+    }
+
+    public static long sortableUrlSafeBase64Lsb(byte[] from, int offset) {
+        return Base64Mod.decode128Low64(from, offset);
     }
 
+    /**
+     * Writes {@link #toSortableUrlSafeBase64(UUID)} into the given array
+     * without allocating.
+     * 
+     * @return number of chars written, always 22
+     */
+    public static int writeSortableUrlSafeBase64(UUID in, char[] to,
+            int offset) {
+        return Base64Mod.encode128(toSortableMsb(in.getMostSignificantBits()),
+                in.getLeastSignificantBits(), to, offset);
+    }
+
+    /**
+     * Writes {@link #toSortableUrlSafeBase64(UUID)} as ascii bytes into the
+     * given array without allocating.
+     * 
+     * @return number of bytes written, always 22
+     */
+    public static int writeSortableUrlSafeBase64(UUID in, byte[] to,
+            int offset) {
+        return Base64Mod.encode128(toSortableMsb(in.getMostSignificantBits()),
+                in.getLeastSignificantBits(), to, offset);
+    }
+
+    public static Appendable appendSortableUrlSafeBase64(UUID in,
+            Appendable to) throws IOException {
+        return Base64Mod.append128(toSortableMsb(in.getMostSignificantBits()),
+                in.getLeastSignificantBits(), to);
+    }
+
+    public static StringBuilder appendSortableUrlSafeBase64(UUID in,
+            StringBuilder to) {
+        return Base64Mod.append128(toSortableMsb(in.getMostSignificantBits()),
+                in.getLeastSignificantBits(), to);
+    }
+
+    /**
+     * @deprecated the temp buffer is not needed anymore, use
+     *             {@link #toSortableUrlSafeBase64(UUID)}
+     */
+    @Deprecated
     public static String toSortableUrlSafeBase64(UUID in, byte[] tempBuf) {
         if (tempBuf.length < 16) {
             throw new IllegalArgumentException(
                     "temp buf needs to be at least 16");
         }
-        toSortableBytes(in, tempBuf, 0);
-        return Base64Mod.encodeToString(tempBuf, 0, 16);
+        return toSortableUrlSafeBase64(in);
     }
 
     public static UUID fromSortableUrlSafeBase64(String s) {
@@ -85,26 +158,28 @@ public class TimeUUIDUtils {
         if (from.length - offset < 22) {
             throw new IllegalArgumentException("Need at least 22 bytes");
         }
-        byte[] decoded = Base64Mod.decode(from, offset, 22);
-        return sortableBytesToUuid(decoded, 0);
+        return new UUID(
+                fromSortableMsb(Base64Mod.decodeHigh64(from, offset)),
+                Base64Mod.decode128Low64(from, offset));
     }
 
     public static UUID fromSortableUrlSafeBase64(CharSequence from, int offset) {
-        return fromSortableUrlSafeBase64(from, offset, new byte[18]);
+        if (from.length() - offset < 22) {
+            throw new IllegalArgumentException("Need at least 22 bytes");
+        }
+        return new UUID(
+                fromSortableMsb(Base64Mod.decodeHigh64(from, offset)),
+                Base64Mod.decode128Low64(from, offset));
     }
 
+    /**
+     * @deprecated the temp buffer is not needed anymore, use
+     *             {@link #fromSortableUrlSafeBase64(CharSequence, int)}
+     */
+    @Deprecated
     public static UUID fromSortableUrlSafeBase64(CharSequence from, int offset,
             byte[] tempBuf) {
-        if (from.length() - offset < 22) {
-            throw new IllegalArgumentException("Need at least 22 bytes");
-        }
-        int decoded = Base64Mod.decode(new Base64Mod.StringByteSupplier(from,
-                offset), 22, tempBuf, 0);
-        if (decoded < 16) {
-            throw new IllegalArgumentException("Not enough bytes, only read: "
-                    + decoded);
-        }
-        return sortableBytesToUuid(tempBuf, 0);
+        return fromSortableUrlSafeBase64(from, offset);
     }
 
     public static final long NUM_100NS_INTERVALS_SINCE_UUID_EPOCH = 0x01b21dd213814000L;
@@ -120,7 +195,7 @@ public class TimeUUIDUtils {
     /**
      * Time uuid: 60 bits of time with 100 nanosec resolution as a unique id.
      * 
-     * To generate a current time uuid use eg. <code>com.eaio.uuid</code> or
+     * To generate a current time uuid use eg. {@link TimeUUID#get()} or
      * similar.
      * 
      * To achieve uniqueness without depending on local clock algo this
@@ -1,8 +1,14 @@
 package shardableobjectids;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.util.Arrays;
 import java.util.Random;
 
@@ -56,6 +62,145 @@ public class Base64ModTest {
 
     }
 
+    @Test
+    public void testUrlSafeEncodeAndDecodeBuffers() {
+
+        Random r = new Random();
+
+        for (int i = 0; i < 100; i++) {
+            byte[] in = new byte[i];
+            r.nextBytes(in);
+            String expected = Base64Mod.encodeToString(in);
+
+            ByteBuffer src = ByteBuffer.allocateDirect(i + 2);
+            src.position(2);
+            src.put(in).flip().position(2);
+            ByteBuffer encoded = ByteBuffer.allocateDirect(expected.length() + 4);
+            assertEquals(expected.length(), Base64Mod.encode(src, encoded));
+            assertEquals(0, src.remaining());
+            encoded.flip();
+
+            ByteBuffer decoded = ByteBuffer.allocate(i + 3);
+            Base64Mod.decode(encoded, decoded);
+            assertEquals(0, encoded.remaining());
+            decoded.flip();
+            assertEquals(ByteBuffer.wrap(in), decoded);
+
+            ByteBuffer heap = ByteBuffer.allocate(expected.length());
+            Base64Mod.encode(ByteBuffer.wrap(in), heap);
+            assertEquals(expected, new String(heap.array()));
+
+            CharBuffer text = CharBuffer.allocate(expected.length());
+            Base64Mod.encode(ByteBuffer.wrap(in), text);
+            text.flip();
+            assertEquals(expected, text.toString());
+
+            decoded.clear();
+            Base64Mod.decode(text, decoded);
+            decoded.flip();
+            assertEquals(ByteBuffer.wrap(in), decoded);
+        }
+    }
+
+    @Test
+    public void testDecodeIntoExactSlice() {
+        byte[] id = new byte[16];
+        new Random().nextBytes(id);
+        String encoded = Base64Mod.encodeToString(id);
+        assertEquals(22, encoded.length());
+        assertEquals(16, Base64Mod.getDecodedLength(encoded.length()));
+
+        ByteBuffer big = ByteBuffer.allocate(40);
+        big.position(8);
+        ByteBuffer slice = big.slice();
+        slice.limit(16);
+        assertEquals(16, Base64Mod.decode(CharBuffer.wrap(encoded), slice));
+        assertEquals(0, slice.remaining());
+        assertArrayEquals(id, Arrays.copyOfRange(big.array(), 8, 24));
+
+        byte[] target = new byte[18];
+        assertEquals(16, Base64Mod.decode(
+                new Base64Mod.StringByteSupplier(encoded, 0), 22, target, 2));
+        assertArrayEquals(id, Arrays.copyOfRange(target, 2, 18));
+        assertEquals(16, Base64Mod.decode(encoded).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeRejectsShortSlice() {
+        Base64Mod.decode(CharBuffer.wrap(Base64Mod.encodeToString(new byte[16])),
+                ByteBuffer.allocate(15));
+    }
+
+    @Test
+    public void testBufferDecodersConsumeAllInput() {
+        String padded = Base64Mod.encodeToString(new byte[] { 1, 2 }) + "=xy";
+        ByteBuffer bytes = ByteBuffer.wrap(padded.getBytes());
+        CharBuffer chars = CharBuffer.wrap(padded);
+        ByteBuffer fromBytes = ByteBuffer.allocate(8);
+        ByteBuffer fromChars = ByteBuffer.allocate(8);
+        assertEquals(2, Base64Mod.decode(bytes, fromBytes));
+        assertEquals(2, Base64Mod.decode(chars, fromChars));
+        assertEquals(0, bytes.remaining());
+        assertEquals(0, chars.remaining());
+        fromBytes.flip();
+        fromChars.flip();
+        assertEquals(fromBytes, fromChars);
+    }
+
+    @Test
+    public void testFixedWidthMatchesGeneric() {
+
+        Random r = new Random();
+
+        for (int i = 0; i < 1000; i++) {
+            long high = r.nextLong();
+            int low32 = r.nextInt();
+            long low64 = r.nextLong();
+
+            byte[] in96 = ByteBuffer.allocate(12).putLong(high).putInt(low32)
+                    .array();
+            String encoded96 = Base64Mod.encode96ToString(high, low32);
+            assertEquals(Base64Mod.encodeToString(in96), encoded96);
+            assertEquals(high, Base64Mod.decodeHigh64(encoded96, 0));
+            assertEquals(low32, Base64Mod.decode96Low32(encoded96, 0));
+            assertEquals(encoded96, Base64Mod.append96(high, low32,
+                    new StringBuilder()).toString());
+
+            byte[] in128 = ByteBuffer.allocate(16).putLong(high)
+                    .putLong(low64).array();
+            String encoded128 = Base64Mod.encode128ToString(high, low64);
+            assertEquals(Base64Mod.encodeToString(in128), encoded128);
+            byte[] ascii = Base64Mod.encode(in128);
+            assertEquals(high, Base64Mod.decodeHigh64(ascii, 0));
+            assertEquals(low64, Base64Mod.decode128Low64(ascii, 0));
+            assertEquals(low64, Base64Mod.decode128Low64(encoded128, 0));
+            assertEquals(encoded128, Base64Mod.append128(high, low64,
+                    new StringBuilder()).toString());
+            try {
+                StringWriter w = new StringWriter();
+                Base64Mod.append96(high, low32, w);
+                Base64Mod.append128(high, low64, w);
+                assertEquals(encoded96 + encoded128, w.toString());
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+
+            long high48 = high & 0xFFFFFFFFFFFFL;
+            byte[] in112 = Arrays.copyOfRange(in128, 0, 14);
+            ByteBuffer.wrap(in112).putShort((short) (high >>> 32))
+                    .putInt((int) high).putLong(low64);
+            String encoded112 = Base64Mod.encode112ToString(high48, low64);
+            assertEquals(Base64Mod.encodeToString(in112), encoded112);
+            assertEquals(encoded112, Base64Mod.append112(high48, low64,
+                    new StringBuilder()).toString());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFixedWidthRejectsWhitespace() {
+        Base64Mod.decode96Low32("abcdefghijklmno ", 0);
+    }
+
     @Test
     public void testBase64Check() {
         assertTrue(Base64Mod.isBase64("adfjio34"));
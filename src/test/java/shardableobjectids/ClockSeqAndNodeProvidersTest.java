@@ -0,0 +1,83 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ClockSeqAndNodeProvidersTest {
+
+    private final ClockSeqAndNodeProvider original = ClockSeqAndNodeProviders
+            .getProvider();
+
+    @After
+    public void tearDown() {
+        ClockSeqAndNodeProviders.setProvider(original);
+    }
+
+    @Test
+    public void testExplicitProviderIsUsedByTimeUUID() {
+        ClockSeqAndNodeProviders.setProvider(ClockSeqAndNodeProviders
+                .explicit(0x1234, 0x0123456789abL));
+        UUID uuid = TimeUUID.get();
+        assertEquals(0x1234, uuid.clockSequence());
+        assertEquals(0x0123456789abL, uuid.node());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    public void testSecureRandomIsMulticastNode() {
+        ClockSeqAndNodeProvider provider = ClockSeqAndNodeProviders
+                .secureRandom();
+        UUID a = new UUID(TimeUUID.newTime(), provider.getClockSeqAndNode());
+        UUID b = new UUID(TimeUUID.newTime(), provider.getClockSeqAndNode());
+        assertEquals(2, a.variant());
+        assertEquals(0x010000000000L, a.node() & 0x010000000000L);
+        assertTrue(a.node() != b.node());
+    }
+
+    @Test
+    public void testCachedFileIncrementsClockSeq() throws Exception {
+        File file = File.createTempFile("clockseq", ".node");
+        try {
+            file.delete();
+            ClockSeqAndNodeProvider provider = ClockSeqAndNodeProviders
+                    .cachedFile(file, ClockSeqAndNodeProviders.explicit(
+                            0x3fff, 0xabcdefL));
+            UUID first = new UUID(TimeUUID.newTime(),
+                    provider.getClockSeqAndNode());
+            assertEquals(0x3fff, first.clockSequence());
+            assertEquals("bfff000000abcdef", new String(Files.readAllBytes(file
+                    .toPath()), Charset.forName("US-ASCII")));
+            UUID second = new UUID(TimeUUID.newTime(),
+                    provider.getClockSeqAndNode());
+            // wraps within 14 bits
+            assertEquals(0, second.clockSequence());
+            assertEquals(0xabcdefL, second.node());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCachedFileRejectsGarbage() throws Exception {
+        File file = File.createTempFile("clockseq", ".node");
+        try {
+            Files.write(file.toPath(), "node-1".getBytes("US-ASCII"));
+            ClockSeqAndNodeProviders.cachedFile(file,
+                    ClockSeqAndNodeProviders.secureRandom())
+                    .getClockSeqAndNode();
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ConcurrentIdHashSetTest {
+
+    @Test
+    public void testConcurrentAddsAreDeduplicated() throws Exception {
+        final ConcurrentIdHashSet set = new ConcurrentIdHashSet(1000, 8);
+        final AtomicInteger added = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    // all threads insert the same ids
+                    for (int i = 0; i < 20000; i++) {
+                        if (set.add(1, 2, i))
+                            added.incrementAndGet();
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(20000, added.get());
+        assertEquals(20000, set.size());
+        assertTrue(set.contains(new ShardableObjectId(2, 1, 19999)));
+        assertTrue(set.remove(1, 2, 0));
+        assertEquals(19999, set.size());
+    }
+}
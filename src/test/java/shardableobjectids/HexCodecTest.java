@@ -0,0 +1,42 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HexCodecTest {
+
+    @Test
+    public void testIntRoundTrip() {
+        Random r = new Random();
+        char[] buf = new char[10];
+        for (int i = 0; i < 1000; i++) {
+            int x = r.nextInt();
+            HexCodec.encodeInt(x, buf, 1);
+            String s = new String(buf, 1, 8);
+            assertEquals(String.format("%08x", x), s);
+            assertEquals(x, HexCodec.decodeInt(s, 0));
+            assertEquals(x, HexCodec.decodeInt(s.toUpperCase(), 0));
+        }
+    }
+
+    @Test
+    public void testIsHex() {
+        assertTrue(HexCodec.isHex("0123456789abcdefABCDEF", 0, 22));
+        assertTrue(HexCodec.isHex("xx0f", 2, 2));
+        assertFalse(HexCodec.isHex("0g", 0, 2));
+        assertFalse(HexCodec.isHex("0你", 0, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeRejectsNonHex() {
+        HexCodec.decodeInt("0000000g", 0);
+    }
+}
@@ -0,0 +1,36 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IdClocksTest {
+
+    @Test
+    public void testFixed() {
+        assertEquals(1325376000000L, IdClocks.fixed(1325376000000L)
+                .currentTimeMillis());
+    }
+
+    @Test
+    public void testCachedFollowsSystemClock() throws Exception {
+        IdClock clock = IdClocks.cached(1);
+        long start = clock.currentTimeMillis();
+        assertTrue(Math.abs(System.currentTimeMillis() - start) < 1000);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (clock.currentTimeMillis() == start
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(clock.currentTimeMillis() > start);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCachedNeedsPositivePeriod() {
+        IdClocks.cached(0);
+    }
+}
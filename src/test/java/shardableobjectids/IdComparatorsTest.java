@@ -0,0 +1,132 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Date;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class IdComparatorsTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testShardableObjectIdForms() {
+        byte[] a = new byte[15];
+        byte[] b = new byte[13];
+        ByteBuffer little = ByteBuffer.allocate(12).order(
+                ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer direct = ByteBuffer.allocateDirect(14);
+        for (int i = 0; i < 1000; i++) {
+            ShardableObjectId x = new ShardableObjectId(random.nextInt(),
+                    random.nextInt(4), random.nextInt(4));
+            ShardableObjectId y = new ShardableObjectId(random.nextInt(),
+                    random.nextInt(4), random.nextInt(4));
+            if (i % 2 == 0)
+                y = new ShardableObjectId(y.getTimeSecond(), x.getMachine(),
+                        y.getInc());
+            int expected = Integer.signum(x.compareTo(y));
+            x.toByteArray(a, 3);
+            y.toByteArray(b, 1);
+            assertEquals(expected,
+                    Integer.signum(IdComparators.compare96(a, 3, b, 1)));
+            assertEquals(expected, Integer.signum(IdComparators
+                    .SHARDABLE_OBJECT_ID_BYTES.compare(x.toByteArray(),
+                            y.toByteArray())));
+
+            little.clear();
+            x.writeTo(little);
+            direct.clear();
+            direct.position(2);
+            y.writeTo(direct);
+            assertEquals(expected, Integer.signum(IdComparators.compare96(
+                    little, 0, direct, 2)));
+
+            assertEquals(expected, Integer.signum(IdComparators.SORTABLE_STRING
+                    .compare(x.toStringSortableBase64URLSafe(),
+                            y.toStringSortableBase64URLSafe())));
+        }
+    }
+
+    @Test
+    public void testShardableObjectIdWithMoPrefixForms() {
+        for (int i = 0; i < 1000; i++) {
+            ShardableObjectIdWithMoPrefix x = new ShardableObjectIdWithMoPrefix(
+                    new Date(random.nextLong() >>> 24), random.nextInt(4),
+                    random.nextInt());
+            ShardableObjectIdWithMoPrefix y = new ShardableObjectIdWithMoPrefix(
+                    new Date(random.nextLong() >>> 24), random.nextInt(4),
+                    random.nextInt());
+            int expected = Integer.signum(x.compareTo(y));
+            assertEquals(expected, Integer.signum(IdComparators
+                    .SHARDABLE_OBJECT_ID_WITH_MO_PREFIX_BYTES.compare(
+                            x.toByteArray(), y.toByteArray())));
+            assertEquals(expected, Integer.signum(IdComparators.compare128(
+                    ByteBuffer.wrap(x.toByteArray()), 0,
+                    ByteBuffer.wrap(y.toByteArray()), 0)));
+            char[] xs = x.toStringSortableBase64URLSafe().toCharArray();
+            char[] ys = y.toStringSortableBase64URLSafe().toCharArray();
+            assertEquals(expected, Integer.signum(IdComparators
+                    .compareSortable(xs, 0, ys, 0, 22)));
+        }
+    }
+
+    @Test
+    public void testShardableObjectIdWithCompactMoPrefixForms() {
+        for (int i = 0; i < 1000; i++) {
+            ShardableObjectIdWithCompactMoPrefix x = new ShardableObjectIdWithCompactMoPrefix(
+                    new ShardableObjectIdWithMoPrefix(new Date(
+                            random.nextLong() >>> 24), random.nextInt(4),
+                            random.nextInt()));
+            ShardableObjectIdWithCompactMoPrefix y = new ShardableObjectIdWithCompactMoPrefix(
+                    new ShardableObjectIdWithMoPrefix(new Date(
+                            random.nextLong() >>> 24), random.nextInt(4),
+                            random.nextInt()));
+            int expected = Integer.signum(x.compareTo(y));
+            assertEquals(expected, Integer.signum(x.toMoPrefix().compareTo(
+                    y.toMoPrefix())));
+            assertEquals(expected, Integer.signum(IdComparators
+                    .SHARDABLE_OBJECT_ID_WITH_COMPACT_MO_PREFIX_BYTES.compare(
+                            x.toByteArray(), y.toByteArray())));
+            assertEquals(expected, Integer.signum(IdComparators.SORTABLE_STRING
+                    .compare(x.toString(), y.toString())));
+        }
+    }
+
+    @Test
+    public void testTimeUUIDSortableBytes() {
+        byte[] a = new byte[20];
+        byte[] b = new byte[16];
+        for (int i = 0; i < 1000; i++) {
+            UUID x = new UUID(TimeUUIDUtils.createTime(random.nextLong() >>> 8),
+                    random.nextLong());
+            UUID y = i % 2 == 0 ? new UUID(x.getMostSignificantBits(),
+                    random.nextLong()) : new UUID(
+                    TimeUUIDUtils.createTime(random.nextLong() >>> 8),
+                    random.nextLong());
+            int expected = Integer.signum(IdComparators.TIME_UUID.compare(x,
+                    y));
+            TimeUUIDUtils.toSortableBytes(x, a, 4);
+            TimeUUIDUtils.toSortableBytes(y, b, 0);
+            assertEquals(expected,
+                    Integer.signum(IdComparators.compare128(a, 4, b, 0)));
+            assertEquals(expected, Integer.signum(IdComparators
+                    .TIME_UUID_SORTABLE_BYTES.compare(
+                            TimeUUIDUtils.toSortableBytes(x),
+                            TimeUUIDUtils.toSortableBytes(y))));
+            assertEquals(expected, Integer.signum(IdComparators.SORTABLE_STRING
+                    .compare(TimeUUIDUtils.toSortableUrlSafeBase64(x),
+                            TimeUUIDUtils.toSortableUrlSafeBase64(y))));
+            if (x.timestamp() != y.timestamp())
+                assertEquals(Long.signum(x.timestamp() - y.timestamp()),
+                        expected);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class IdHashSetTest {
+
+    @Test
+    public void testAddContainsRemove() {
+        IdHashSet set = new IdHashSet(0);
+        ShardableObjectId id = new ShardableObjectId();
+        assertFalse(set.contains(id));
+        assertTrue(set.add(id));
+        assertFalse(set.add(new ShardableObjectId(id.toByteArray())));
+        assertTrue(set.contains(id));
+        assertEquals(1, set.size());
+        assertTrue(set.remove(id));
+        assertFalse(set.remove(id));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testMatchesHashSetUnderRandomOps() {
+        Random r = new Random(3);
+        IdHashSet set = new IdHashSet();
+        Set<ShardableObjectId> reference = new HashSet<ShardableObjectId>();
+        List<ShardableObjectId> pool = new ArrayList<ShardableObjectId>();
+        for (int i = 0; i < 2000; i++) {
+            // sequential incs of one machine, like ids of one process
+            pool.add(new ShardableObjectId(1000 + i / 100, 42, i));
+        }
+        for (int i = 0; i < 50000; i++) {
+            ShardableObjectId id = pool.get(r.nextInt(pool.size()));
+            switch (r.nextInt(3)) {
+            case 0:
+                assertEquals(reference.add(id), set.add(id));
+                break;
+            case 1:
+                assertEquals(reference.remove(id), set.remove(id));
+                break;
+            default:
+                assertEquals(reference.contains(id), set.contains(id));
+            }
+            assertEquals(reference.size(), set.size());
+        }
+        for (ShardableObjectId id : pool) {
+            assertEquals(reference.contains(id), set.contains(id));
+        }
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains(pool.get(0)));
+    }
+
+    @Test
+    public void testSizeBounds() {
+        for (int size : new int[] { -1, IdHashTable.MAX_EXPECTED_SIZE + 1,
+                805306369, Integer.MAX_VALUE }) {
+            try {
+                new IdHashSet(size);
+                fail("accepted " + size);
+            } catch (IllegalArgumentException e) {
+            }
+        }
+        assertEquals(4, IdHashTable._capacityFor(0));
+        assertEquals(4, IdHashTable._capacityFor(3));
+        assertEquals(8, IdHashTable._capacityFor(4));
+        assertEquals(IdHashTable.MAX_CAPACITY,
+                IdHashTable._capacityFor(IdHashTable.MAX_EXPECTED_SIZE));
+        // the largest table still gets an int indexable key array
+        assertTrue((long) IdHashTable.MAX_CAPACITY * 3 <= Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,41 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IdToLongMapTest {
+
+    @Test
+    public void testPutGetRemoveAcrossGrowth() {
+        IdToLongMap map = new IdToLongMap(1);
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(-1, map.put(i, 7, i * 3, i, -1));
+        }
+        assertEquals(10000, map.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, map.get(i, 7, i * 3, -1));
+        }
+        assertEquals(5, map.put(5, 7, 15, 50, -1));
+        assertEquals(50, map.remove(5, 7, 15, -1));
+        assertEquals(-1, map.remove(5, 7, 15, -1));
+        assertEquals(-1, map.get(5, 7, 15, -1));
+        assertEquals(9999, map.size());
+    }
+
+    @Test
+    public void testAddTo() {
+        IdToLongMap map = new IdToLongMap();
+        ShardableObjectId id = new ShardableObjectId();
+        assertFalse(map.containsKey(id));
+        assertEquals(2, map.addTo(id, 2));
+        assertEquals(5, map.addTo(id, 3));
+        assertTrue(map.containsKey(id));
+        assertEquals(5, map.get(id, 0));
+    }
+}
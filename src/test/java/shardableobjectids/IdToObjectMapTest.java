@@ -0,0 +1,37 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IdToObjectMapTest {
+
+    @Test
+    public void testPutGetRemoveAcrossGrowth() {
+        IdToObjectMap<String> map = new IdToObjectMap<String>(1);
+        for (int i = 0; i < 5000; i++) {
+            assertNull(map.put(3, i, i, "v" + i));
+        }
+        assertEquals(5000, map.size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals("v" + i, map.get(3, i, i));
+        }
+        ShardableObjectId id = new ShardableObjectId(7, 3, 7);
+        assertEquals("v7", map.put(id, "x"));
+        assertEquals("x", map.remove(id));
+        assertNull(map.get(id));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(3, 1, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNullValues() {
+        new IdToObjectMap<String>().put(new ShardableObjectId(), null);
+    }
+}
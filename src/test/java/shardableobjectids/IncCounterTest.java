@@ -0,0 +1,59 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class IncCounterTest {
+
+    @Test
+    public void testBlocksAreConsecutivePerThread() {
+        IncCounter counter = new IncCounter();
+        counter.setBlockSize(100);
+        int first = counter.next();
+        assertEquals(first + 1, counter.next());
+        assertEquals(first + 2, counter.next(10));
+        assertEquals(first + 12, counter.next());
+        // does not fit the rest of the block, leases a new one
+        assertEquals(first + 100, counter.next(90));
+        // batches of at least a block go to the shared counter
+        assertEquals(first + 200, counter.next(100));
+    }
+
+    @Test
+    public void testConcurrentIncsAreUnique() throws Exception {
+        final IncCounter counter = new IncCounter();
+        counter.setBlockSize(64);
+        final IdHashSet seen = new IdHashSet(100000);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    int[] incs = new int[20000];
+                    for (int i = 0; i < incs.length; i++) {
+                        incs[i] = counter.next(1 + i % 3);
+                    }
+                    synchronized (seen) {
+                        for (int inc : incs) {
+                            seen.add(0, 0, inc);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(80000, seen.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBlockSizeMustBePositive() {
+        new IncCounter().setBlockSize(0);
+    }
+}
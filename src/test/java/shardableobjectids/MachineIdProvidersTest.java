@@ -0,0 +1,141 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Test;
+
+public class MachineIdProvidersTest {
+
+    private final MachineIdProvider original = MachineIdProviders
+            .getProvider();
+
+    @After
+    public void tearDown() {
+        MachineIdProviders.setProvider(original);
+        System.clearProperty(MachineIdProviders.PROPERTY);
+    }
+
+    @Test
+    public void testExplicitProviderIsUsedByAllIdTypes() {
+        MachineIdProviders.setProvider(MachineIdProviders.explicit(4711));
+        assertEquals(4711, new ShardableObjectId().getMachine());
+        assertEquals(4711, new ShardableObjectIdWithMoPrefix().getMachine());
+        assertEquals(4711, ShardableObjectId.getGenMachineId());
+    }
+
+    @Test
+    public void testResolvedOnlyOnce() {
+        final int[] calls = new int[1];
+        MachineIdProviders.setProvider(new MachineIdProvider() {
+            @Override
+            public int getMachineId() {
+                return ++calls[0];
+            }
+        });
+        assertEquals(1, MachineIdProviders.getMachineId());
+        assertEquals(1, MachineIdProviders.getMachineId());
+        assertEquals(1, calls[0]);
+    }
+
+    @Test
+    public void testFromProperty() {
+        MachineIdProvider provider = MachineIdProviders.fromProperty(
+                MachineIdProviders.PROPERTY, null,
+                MachineIdProviders.explicit(7));
+        assertEquals(7, provider.getMachineId());
+        System.setProperty(MachineIdProviders.PROPERTY, "0xcafebabe");
+        assertEquals(0xcafebabe, provider.getMachineId());
+        System.setProperty(MachineIdProviders.PROPERTY, " -12 ");
+        assertEquals(-12, provider.getMachineId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromPropertyRejectsGarbage() {
+        System.setProperty(MachineIdProviders.PROPERTY, "host-1");
+        MachineIdProviders.fromProperty(MachineIdProviders.PROPERTY, null,
+                MachineIdProviders.explicit(7)).getMachineId();
+    }
+
+    @Test
+    public void testCachedFile() throws Exception {
+        File file = File.createTempFile("machine", ".id");
+        try {
+            file.delete();
+            assertEquals(42, MachineIdProviders.cachedFile(file,
+                    MachineIdProviders.explicit(42)).getMachineId());
+            assertEquals("42", new String(Files.readAllBytes(file.toPath()),
+                    Charset.forName("US-ASCII")));
+            // the cached value wins over the fallback
+            assertEquals(42, MachineIdProviders.cachedFile(file,
+                    MachineIdProviders.explicit(43)).getMachineId());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testCachedFileRaceKeepsWinner() throws Exception {
+        final File file = File.createTempFile("machine", ".id");
+        try {
+            file.delete();
+            // another process creates the file while the fallback runs
+            MachineIdProvider racing = new MachineIdProvider() {
+                @Override
+                public int getMachineId() {
+                    try {
+                        Files.write(file.toPath(),
+                                "7".getBytes(Charset.forName("US-ASCII")));
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                    return 8;
+                }
+            };
+            assertEquals(8, MachineIdProviders.cachedFile(file, racing)
+                    .getMachineId());
+            assertEquals("7", new String(Files.readAllBytes(file.toPath()),
+                    Charset.forName("US-ASCII")));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testCachedFileTreatsEmptyAsMissing() throws Exception {
+        File dir = Files.createTempDirectory("machine").toFile();
+        File file = new File(dir, "machine.id");
+        try {
+            // left behind by a crash between create and write
+            file.createNewFile();
+            assertEquals(9, MachineIdProviders.cachedFile(file,
+                    MachineIdProviders.explicit(9)).getMachineId());
+            file.delete();
+
+            assertEquals(10, MachineIdProviders.cachedFile(file,
+                    MachineIdProviders.explicit(10)).getMachineId());
+            assertEquals("10", new String(Files.readAllBytes(file.toPath()),
+                    Charset.forName("US-ASCII")));
+            // no temporary files left next to it
+            assertEquals(1, dir.list().length);
+        } finally {
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testBson() {
+        assertEquals(ObjectId.getGenMachineId(), MachineIdProviders.bson()
+                .getMachineId());
+    }
+}
@@ -0,0 +1,58 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import org.junit.Test;
+
+public class MonthResolverTest {
+
+    @Test
+    public void testUtcBoundaries() {
+        long feb2012 = ZonedDateTime.parse("2012-02-01T00:00:00Z")
+                .toEpochSecond();
+        long mar2012 = ZonedDateTime.parse("2012-03-01T00:00:00Z")
+                .toEpochSecond();
+        MonthResolver resolver = MonthResolver.UTC;
+        assertEquals(201201, resolver.monthOfSecond(feb2012 - 1));
+        assertEquals(201202, resolver.monthOfSecond(feb2012));
+        assertEquals(201202, resolver.monthOfSecond(feb2012 + 1));
+        assertEquals(201202, resolver.monthOfSecond(mar2012 - 1));
+        assertEquals(201203, resolver.monthOfSecond(mar2012));
+        assertEquals(201112, resolver.monthOfMillis(
+                ZonedDateTime.parse("2012-01-01T00:00:00Z").toEpochSecond()
+                        * 1000 - 1));
+        assertEquals(196912, resolver.monthOfMillis(-1));
+    }
+
+    @Test
+    public void testZone() {
+        MonthResolver berlin = new MonthResolver(ZoneId.of("Europe/Berlin"));
+        long newYearUtc = ZonedDateTime.parse("2012-01-01T00:00:00Z")
+                .toEpochSecond();
+        // already an hour into January in Berlin
+        assertEquals(201201, berlin.monthOfSecond(newYearUtc - 1));
+        assertEquals(201112, berlin.monthOfSecond(newYearUtc - 3601));
+        assertEquals(201112, MonthResolver.UTC.monthOfSecond(newYearUtc - 1));
+    }
+
+    @Test
+    public void testHistoricLookupsKeepCurrentWindow() {
+        MonthResolver resolver = new MonthResolver(ZoneId.of("UTC"));
+        long now = System.currentTimeMillis() / 1000;
+        resolver.monthOfSecond(now);
+        assertTrue(resolver._isCached(now));
+        long feb2012 = ZonedDateTime.parse("2012-02-01T00:00:00Z")
+                .toEpochSecond();
+        assertEquals(201202, resolver.monthOfSecond(feb2012));
+        assertTrue(resolver._isCached(now));
+        resolver.monthOfSecond(now + 400L * 24 * 3600);
+        assertTrue(resolver._isCached(now));
+    }
+}
@@ -0,0 +1,99 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ShardRouterTest {
+
+    @Test
+    public void testJumpConsistentSpreadsAndMovesLittle() {
+        ShardRouter ten = ShardRouter.jumpConsistent(10);
+        ShardRouter eleven = ShardRouter.jumpConsistent(11);
+        int[] counts = new int[10];
+        int moved = 0;
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            ShardableObjectId id = new ShardableObjectId(random.nextInt(),
+                    random.nextInt(), random.nextInt());
+            int p = ten.route(id);
+            counts[p]++;
+            int q = eleven.route(id);
+            if (p != q) {
+                // only moves to the new partition
+                assertEquals(10, q);
+                moved++;
+            }
+        }
+        for (int count : counts) {
+            assertTrue(count > 9000 && count < 11000);
+        }
+        assertTrue(moved > 8000 && moved < 10200);
+    }
+
+    @Test
+    public void testJumpConsistentMoPrefix() {
+        MoPrefixShardRouter router = MoPrefixShardRouter.jumpConsistent(4);
+        ShardableObjectIdWithMoPrefix id = new ShardableObjectIdWithMoPrefix();
+        int p = router.route(id);
+        assertTrue(p >= 0 && p < 4);
+        assertEquals(p, router.route(id.getMonth(), id.getMachine(),
+                id.getTimeSecond(), id.getInc()));
+        assertEquals(0, MoPrefixShardRouter.jumpConsistent(1).route(id));
+    }
+
+    @Test
+    public void testRangeTable() {
+        ShardableObjectIdArray splits = new ShardableObjectIdArray();
+        splits.add(0x10000000, 0, 0);
+        splits.add(0x80000000, 0, 0);
+        ShardRouter router = ShardRouter.rangeTable(splits);
+        splits.clear();
+        assertEquals(3, router.partitions());
+        assertEquals(0, router.route(0, 5, 5));
+        assertEquals(0, router.route(0x0fffffff, -1, -1));
+        assertEquals(1, router.route(0x10000000, 0, 0));
+        assertEquals(1, router.route(0x7fffffff, 0, 0));
+        // unsigned, like the sortable bytes
+        assertEquals(2, router.route(0x80000000, 0, 0));
+        assertEquals(2, router.route(-1, -1, -1));
+        assertEquals(router.route(0x12345678, 1, 2),
+                router.route(new ShardableObjectId(1, 0x12345678, 2)));
+    }
+
+    @Test
+    public void testMoPrefixRangeTable() {
+        ShardableObjectIdWithMoPrefixArray splits = new ShardableObjectIdWithMoPrefixArray();
+        splits.add(201201, 0, 0, 0);
+        splits.add(201207, 0, 0, 0);
+        MoPrefixShardRouter router = MoPrefixShardRouter.rangeTable(splits);
+        splits.clear();
+        assertEquals(3, router.partitions());
+        assertEquals(0, router.route(201112, -1, 0, 0));
+        assertEquals(1, router.route(201201, 0, 0, 0));
+        assertEquals(1, router.route(201206, 7, 0, 0));
+        assertEquals(2, router.route(201301, 7, 0, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRangeTableNeedsIncreasingSplitPoints() {
+        ShardableObjectIdArray splits = new ShardableObjectIdArray();
+        splits.add(2, 0, 0);
+        splits.add(1, 0, 0);
+        ShardRouter.rangeTable(splits);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMoPrefixRangeTableNeedsIncreasingSplitPoints() {
+        ShardableObjectIdWithMoPrefixArray splits = new ShardableObjectIdWithMoPrefixArray();
+        splits.add(201202, 0, 0, 0);
+        splits.add(201201, 0, 0, 0);
+        MoPrefixShardRouter.rangeTable(splits);
+    }
+}
@@ -0,0 +1,118 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ShardableObjectIdArrayTest {
+
+    private List<ShardableObjectId> randomIds(int n) {
+        Random r = new Random(7);
+        List<ShardableObjectId> ids = new ArrayList<ShardableObjectId>();
+        for (int i = 0; i < n; i++) {
+            // few machines and times to get ties on the leading ints
+            ids.add(new ShardableObjectId(r.nextInt(3) - 1, r.nextInt(4)
+                    * Integer.MAX_VALUE, r.nextInt()));
+        }
+        // duplicates
+        ids.addAll(ids.subList(0, n / 10));
+        Collections.shuffle(ids, r);
+        return ids;
+    }
+
+    @Test
+    public void testAddGetSetGrow() {
+        ShardableObjectIdArray a = new ShardableObjectIdArray(1);
+        List<ShardableObjectId> ids = randomIds(100);
+        for (ShardableObjectId id : ids) {
+            a.add(id);
+        }
+        assertEquals(ids.size(), a.size());
+        for (int i = 0; i < ids.size(); i++) {
+            ShardableObjectId id = ids.get(i);
+            assertEquals(id, a.get(i));
+            assertEquals(id.getMachine(), a.getMachine(i));
+            assertEquals(id.getTimeSecond(), a.getTimeSecond(i));
+            assertEquals(id.getInc(), a.getInc(i));
+        }
+        int[] holder = new int[4];
+        a.get(3, holder, 1);
+        assertArrayEquals(new int[] { 0, ids.get(3).getMachine(),
+                ids.get(3).getTimeSecond(), ids.get(3).getInc() }, holder);
+
+        ShardableObjectId replacement = new ShardableObjectId();
+        a.set(5, replacement);
+        assertEquals(replacement, a.get(5));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetChecksIndex() {
+        ShardableObjectIdArray a = new ShardableObjectIdArray();
+        a.add(new ShardableObjectId());
+        a.get(1);
+    }
+
+    @Test
+    public void testSortMatchesCompareToAndBinarySearch() {
+        List<ShardableObjectId> ids = randomIds(5000);
+        ShardableObjectIdArray a = new ShardableObjectIdArray();
+        for (ShardableObjectId id : ids) {
+            a.add(id);
+        }
+        a.sort();
+        Collections.sort(ids);
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(ids.get(i), a.get(i));
+        }
+        for (ShardableObjectId id : ids) {
+            int found = a.binarySearch(id);
+            assertTrue(found >= 0);
+            assertEquals(id, a.get(found));
+        }
+        ShardableObjectId missing = new ShardableObjectId(5, 5, 5);
+        int insertion = -a.binarySearch(missing) - 1;
+        assertTrue(insertion == a.size()
+                || missing.compareTo(a.get(insertion)) < 0);
+        assertTrue(insertion == 0
+                || missing.compareTo(a.get(insertion - 1)) > 0);
+    }
+
+    @Test
+    public void testBulkEncodeDecode() {
+        List<ShardableObjectId> ids = randomIds(50);
+        ShardableObjectIdArray a = new ShardableObjectIdArray();
+        for (ShardableObjectId id : ids) {
+            a.add(id);
+        }
+        char[] encoded = new char[a.size() * 16 + 1];
+        assertEquals(a.size() * 16, a.encode(encoded, 1));
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(ids.get(i).toString(),
+                    new String(encoded, 1 + i * 16, 16));
+            assertEquals(ids.get(i).toString(), a.encodeToString(i));
+        }
+
+        ShardableObjectIdArray decoded = new ShardableObjectIdArray();
+        decoded.decode(new String(encoded), 1, a.size());
+        assertEquals(a.size(), decoded.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(0, ids.get(i).compareTo(decoded.get(i)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeRejectsOverflowingCount() {
+        // count * chars per id overflows int
+        new ShardableObjectIdArray().decode("", 0, 200000000);
+    }
+}
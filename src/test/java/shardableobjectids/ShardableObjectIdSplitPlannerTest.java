@@ -0,0 +1,77 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ShardableObjectIdSplitPlannerTest {
+
+    @Test
+    public void testSplitsSkewedMachinesEvenly() {
+        Random random = new Random(5);
+        ShardableObjectIdSplitPlanner planner = new ShardableObjectIdSplitPlanner(
+                4096, random);
+        ShardableObjectIdArray ids = new ShardableObjectIdArray();
+        // few machines, one of them writing most
+        int[] machines = { 7, 7, 7, 7, 7, 7, 0x40000000, 0x80000001 };
+        for (int i = 0; i < 200000; i++) {
+            ids.add(machines[random.nextInt(machines.length)],
+                    1325376000 + random.nextInt(86400), i);
+        }
+        planner.addAll(ids);
+        assertEquals(200000, planner.count());
+        assertEquals(4096, planner.sampleCount());
+
+        ShardableObjectIdArray points = planner.splitPoints(8);
+        assertEquals(7, points.size());
+        ShardRouter router = ShardRouter.rangeTable(points);
+        int[] counts = new int[8];
+        for (int i = 0; i < ids.size(); i++) {
+            counts[router.route(ids.getMachine(i), ids.getTimeSecond(i),
+                    ids.getInc(i))]++;
+        }
+        for (int count : counts) {
+            assertTrue(String.valueOf(count), count > 21000 && count < 29000);
+        }
+
+        byte[][] bytes = planner.splitPointBytes(8);
+        String[] strings = planner.splitPointStrings(8);
+        assertEquals(7, bytes.length);
+        for (int i = 0; i < 7; i++) {
+            assertArrayEquals(points.get(i).toByteArray(), bytes[i]);
+            assertEquals(points.get(i).toStringSortableBase64URLSafe(),
+                    strings[i]);
+            if (i > 0)
+                assertTrue(strings[i - 1].compareTo(strings[i]) < 0);
+        }
+    }
+
+    @Test
+    public void testFewDistinctIds() {
+        ShardableObjectIdSplitPlanner planner = new ShardableObjectIdSplitPlanner(
+                100, new Random(1));
+        for (int i = 0; i < 1000; i++) {
+            planner.add(new ShardableObjectId(0, i % 3, 0));
+        }
+        ShardableObjectIdArray points = planner.splitPoints(10);
+        assertTrue(points.size() <= 2);
+        for (int i = 1; i < points.size(); i++) {
+            assertTrue(points.compare(i - 1, i) < 0);
+        }
+        assertEquals(0, new ShardableObjectIdSplitPlanner(10).splitPoints(4)
+                .size());
+        assertEquals(0, planner.splitPoints(1).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNeedsPositiveSampleSize() {
+        new ShardableObjectIdSplitPlanner(0);
+    }
+}
@@ -3,9 +3,21 @@ package shardableobjectids;
 /*
  * Copyright Georg Koester 2012. Licensed under Apache License 2.0
  */
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+
+import org.apache.commons.codec.binary.Hex;
 import org.junit.Test;
 
 public class ShardableObjectIdTest {
@@ -52,6 +64,116 @@ public class ShardableObjectIdTest {
         assertEquals(soid, soid2);
     }
 
+    @Test
+    public void testSortableBase64MatchesGenericCodec() {
+        ShardableObjectId soid = new ShardableObjectId(-5, 0x80000000, -1);
+        assertEquals(Base64Mod.encodeToString(soid.toByteArray()),
+                soid.toStringSortableBase64URLSafe());
+        assertEquals(soid,
+                new ShardableObjectId(soid.toStringSortableBase64URLSafe()));
+    }
+
+    @Test
+    public void testWriteToAndAppendToMatchToString() throws Exception {
+        ShardableObjectId soid = new ShardableObjectId();
+        String expected = soid.toString();
+
+        char[] chars = new char[20];
+        assertEquals(16, soid.writeTo(chars, 3));
+        assertEquals(expected, new String(chars, 3, 16));
+
+        byte[] bytes = new byte[20];
+        assertEquals(16, soid.writeTo(bytes, 4));
+        assertEquals(expected, new String(bytes, 4, 16, "US-ASCII"));
+
+        assertEquals("x" + expected, soid.appendTo(new StringBuilder("x"))
+                .toString());
+        StringWriter w = new StringWriter();
+        soid.appendTo((Appendable) w);
+        assertEquals(expected, w.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWriteToChecksBounds() {
+        new ShardableObjectId().writeTo(new char[16], 1);
+    }
+
+    @Test
+    public void testMongodAndBabbleMatchBytes() {
+        ShardableObjectId soid = new ShardableObjectId();
+        byte[] b = soid.toByteArray();
+        assertEquals(Hex.encodeHexString(b), soid.toStringMongod());
+
+        byte[] babbled = new byte[b.length];
+        for (int i = 0; i < 8; i++)
+            babbled[i] = b[7 - i];
+        for (int i = 8; i < b.length; i++)
+            babbled[i] = b[b.length - 1 - (i - 8)];
+        String babble = soid.toStringBabble();
+        assertEquals(Hex.encodeHexString(babbled), babble);
+        assertEquals(soid.toStringMongod(), ShardableObjectId.babbleToMongod(babble));
+        assertEquals(babble, ShardableObjectId.babbleToMongod(soid.toStringMongod()));
+        assertEquals(soid, new ShardableObjectId(babble, true));
+        assertEquals(soid, new ShardableObjectId(soid.toStringMongod()
+                .toUpperCase()));
+    }
+
+    @Test
+    public void testTryParse() {
+        ShardableObjectId soid = new ShardableObjectId();
+        String base64 = soid.toString();
+        String mongod = soid.toStringMongod();
+        assertEquals(soid, ShardableObjectId.tryParse(base64));
+        assertEquals(soid, ShardableObjectId.tryParse(mongod));
+        assertEquals(soid, ShardableObjectId.tryParse("x" + base64 + "x", 1,
+                16));
+        assertEquals(soid, ShardableObjectId.tryParse(mongod.toUpperCase()));
+
+        assertNull(ShardableObjectId.tryParse(null));
+        assertNull(ShardableObjectId.tryParse(""));
+        assertNull(ShardableObjectId.tryParse(base64.substring(1)));
+        assertNull(ShardableObjectId.tryParse(" " + base64.substring(1)));
+        assertNull(ShardableObjectId.tryParse(base64.substring(1) + "!"));
+        assertNull(ShardableObjectId.tryParse(mongod.substring(1) + "g"));
+        assertNull(ShardableObjectId.tryParse(base64, 1, 16));
+    }
+
+    @Test
+    public void testOffsetByteArrayRoundTrip() {
+        ShardableObjectId first = new ShardableObjectId();
+        ShardableObjectId second = new ShardableObjectId();
+        byte[] page = new byte[1 + 2 * 12];
+        first.toByteArray(page, 1);
+        second.toByteArray(page, 1 + 12);
+        assertArrayEquals(first.toByteArray(),
+                Arrays.copyOfRange(page, 1, 1 + 12));
+        assertEquals(first, new ShardableObjectId(page, 1));
+        assertEquals(second, new ShardableObjectId(page, 1 + 12));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffsetByteArrayChecksBounds() {
+        new ShardableObjectId(new byte[12], 1);
+    }
+
+    @Test
+    public void testByteBufferRoundTrip() {
+        ShardableObjectId soid = new ShardableObjectId();
+        ByteBuffer direct = ByteBuffer.allocateDirect(20);
+        direct.position(3);
+        soid.writeTo(direct);
+        assertEquals(15, direct.position());
+        direct.position(3);
+        assertEquals(soid, new ShardableObjectId(direct));
+
+        ByteBuffer little = ByteBuffer.allocate(12).order(
+                ByteOrder.LITTLE_ENDIAN);
+        soid.writeTo(little);
+        assertArrayEquals(soid.toByteArray(), little.array());
+        little.flip();
+        assertEquals(soid, new ShardableObjectId(little));
+    }
+
     @Test
     public void testParseNormalBase64() {
         ShardableObjectId soid = new ShardableObjectId();
@@ -61,4 +183,148 @@ public class ShardableObjectIdTest {
 
         assertEquals(soid, soid2);
     }
+
+    @Test
+    public void testGenerateBatch() {
+        ShardableObjectIdArray ids = ShardableObjectId.generate(100,
+                new ShardableObjectIdArray());
+        assertEquals(100, ids.size());
+        ShardableObjectId first = ids.get(0);
+        for (int i = 1; i < ids.size(); i++) {
+            assertEquals(first.getMachine(), ids.getMachine(i));
+            assertEquals(first.getTimeSecond(), ids.getTimeSecond(i));
+            assertEquals(first.getInc() + i, ids.getInc(i));
+        }
+        ShardableObjectId next = new ShardableObjectId();
+        assertEquals(first.getInc() + 100, next.getInc());
+    }
+
+    @Test
+    public void testGenerateBatchIntoByteBuffer() {
+        ByteBuffer bb = ByteBuffer.allocate(36);
+        ShardableObjectId.generate(3, bb);
+        assertEquals(36, bb.position());
+        bb.flip();
+        ShardableObjectId first = new ShardableObjectId(bb);
+        assertEquals(first.getInc() + 1, new ShardableObjectId(bb).getInc());
+
+        ByteBuffer little = ByteBuffer.allocate(24).order(
+                ByteOrder.LITTLE_ENDIAN);
+        ShardableObjectId.generate(2, little);
+        little.flip();
+        ShardableObjectId a = new ShardableObjectId(little);
+        assertEquals(a.getInc() + 1, new ShardableObjectId(little).getInc());
+        assertEquals(first.getMachine(), a.getMachine());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGenerateBatchBufferTooSmall() {
+        ShardableObjectId.generate(3, ByteBuffer.allocate(35));
+    }
+
+    @Test
+    public void testInjectedClock() {
+        IdClock original = ShardableObjectId.getClock();
+        try {
+            ShardableObjectId.setClock(IdClocks.fixed(1325376000999L));
+            ShardableObjectId id = new ShardableObjectId();
+            assertEquals(1325376000, id.getTimeSecond());
+            assertEquals(1325376000, ShardableObjectId.generate(1,
+                    new ShardableObjectIdArray()).getTimeSecond(0));
+        } finally {
+            ShardableObjectId.setClock(original);
+        }
+    }
+
+    @Test
+    public void testPrefixSpread() {
+        MachineIdProvider original = MachineIdProviders.getProvider();
+        MachineIdProviders.setProvider(MachineIdProviders.explicit(5));
+        try {
+            ShardableObjectId.setPrefixSpreadBits(2);
+            ShardableObjectIdArray ids = ShardableObjectId.generate(8,
+                    new ShardableObjectIdArray());
+            ShardableObjectId single = new ShardableObjectId();
+            ids.add(single);
+            IdHashSet machines = new IdHashSet();
+            for (int i = 0; i < ids.size(); i++) {
+                int machine = ids.getMachine(i);
+                // 5 plus a prefix index in the top 2 bits
+                assertEquals(5, machine & 0x3fffffff);
+                assertEquals(ids.getInc(i) & 3, machine >>> 30);
+                machines.add(machine, 0, 0);
+                ShardableObjectId id = ids.get(i);
+                assertEquals(id, new ShardableObjectId(id.toString()));
+            }
+            assertEquals(4, machines.size());
+
+            ByteBuffer little = ByteBuffer.allocate(24).order(
+                    ByteOrder.LITTLE_ENDIAN);
+            ShardableObjectId.generate(2, little);
+            little.flip();
+            ShardableObjectId a = new ShardableObjectId(little);
+            assertEquals(a.getInc() & 3, a.getMachine() >>> 30);
+
+            // ids built from a given time stay deterministic
+            for (int inc = 0; inc < 4; inc++) {
+                assertEquals(5, new ShardableObjectId(new Date(0), inc)
+                        .getMachine());
+            }
+        } finally {
+            ShardableObjectId.setPrefixSpreadBits(0);
+            MachineIdProviders.setProvider(original);
+        }
+        assertEquals(ShardableObjectId.getGenMachineId(),
+                new ShardableObjectId().getMachine());
+    }
+
+    @Test
+    public void testPrefixSpreadRefusesDefaultStyleMachineIds() {
+        // host hash in the high 16 bits, process piece in the low 16 like
+        // the BSON machine id; same pid on two hosts
+        int hostA = 0xba5c0001;
+        int hostB = 0x91f20001;
+        for (int bits = 1; bits <= 16; bits++) {
+            assertFalse(ShardableObjectId._spreadable(hostA, bits));
+            assertFalse(ShardableObjectId._spreadable(hostB, bits));
+            try {
+                ShardableObjectId._spread(hostA, bits, 0);
+                fail();
+            } catch (IllegalStateException e) {
+            }
+        }
+
+        MachineIdProvider original = MachineIdProviders.getProvider();
+        MachineIdProviders.setProvider(MachineIdProviders.explicit(hostA));
+        try {
+            ShardableObjectId.setPrefixSpreadBits(16);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(0, ShardableObjectId.getPrefixSpreadBits());
+        } finally {
+            MachineIdProviders.setProvider(original);
+        }
+    }
+
+    @Test
+    public void testSpreadMachinesOfDistinctMachineIdsDiffer() {
+        Random random = new Random(7);
+        for (int bits = 1; bits <= 16; bits++) {
+            for (int i = 0; i < 10000; i++) {
+                // machine ids below 2^(32 - bits)
+                int a = random.nextInt() >>> bits;
+                int b = random.nextInt() >>> bits;
+                if (i % 2 == 0)
+                    b = a ^ (1 << random.nextInt(32 - bits));
+                int sa = ShardableObjectId._spread(a, bits, random.nextInt());
+                int sb = ShardableObjectId._spread(b, bits, random.nextInt());
+                assertTrue(a == b || sa != sb);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPrefixSpreadBitsRange() {
+        ShardableObjectId.setPrefixSpreadBits(17);
+    }
 }
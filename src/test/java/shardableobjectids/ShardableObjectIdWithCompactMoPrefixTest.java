@@ -0,0 +1,165 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+public class ShardableObjectIdWithCompactMoPrefixTest {
+
+    @Test
+    public void testMonthIndex() {
+        assertEquals(0, ShardableObjectIdWithCompactMoPrefix.toMonthIndex(197001));
+        assertEquals(507,
+                ShardableObjectIdWithCompactMoPrefix.toMonthIndex(201204));
+        assertEquals(201204, ShardableObjectIdWithCompactMoPrefix.toYyyymm(507));
+        assertEquals(743104, ShardableObjectIdWithCompactMoPrefix
+                .toYyyymm(ShardableObjectIdWithCompactMoPrefix.MAX_MONTH_INDEX));
+        for (int i = 0; i <= ShardableObjectIdWithCompactMoPrefix.MAX_MONTH_INDEX; i++) {
+            int yyyymm = ShardableObjectIdWithCompactMoPrefix.toYyyymm(i);
+            assertEquals(i,
+                    ShardableObjectIdWithCompactMoPrefix.toMonthIndex(yyyymm));
+        }
+        for (int bad : new int[] { 196912, 201200, 201213, 743105, -201201 }) {
+            try {
+                ShardableObjectIdWithCompactMoPrefix.toMonthIndex(bad);
+                fail("accepted " + bad);
+            } catch (IllegalArgumentException e) {
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        ShardableObjectIdWithCompactMoPrefix id = new ShardableObjectIdWithCompactMoPrefix(
+                0xFFFF, 0x81234567, 0xCAFEBABE, -1);
+        assertEquals("ffff81234567cafebabeffffffff", id.toStringMongod());
+        assertEquals(19, id.toString().length());
+        assertEquals(id, new ShardableObjectIdWithCompactMoPrefix(id.toString()));
+        assertEquals(id,
+                new ShardableObjectIdWithCompactMoPrefix(id.toStringMongod()));
+        assertEquals(14, id.toByteArray().length);
+        assertEquals(id,
+                new ShardableObjectIdWithCompactMoPrefix(id.toByteArray()));
+        byte[] bytes = id.toByteArray(new byte[20], 5);
+        assertEquals(id, new ShardableObjectIdWithCompactMoPrefix(bytes, 5));
+
+        char[] chars = new char[21];
+        assertEquals(19, id.writeTo(chars, 2));
+        assertEquals(id.toString(), new String(chars, 2, 19));
+        byte[] ascii = new byte[19];
+        id.writeTo(ascii, 0);
+        assertEquals(id.toString(), new String(ascii));
+        assertEquals(id, ShardableObjectIdWithCompactMoPrefix.tryParse("xx"
+                + id.toString() + "yy", 2, 19));
+        assertEquals(id.toString(), id.appendTo(new StringBuilder())
+                .toString());
+
+        assertNull(ShardableObjectIdWithCompactMoPrefix.tryParse(id
+                .toString().substring(1)));
+        assertNull(ShardableObjectIdWithCompactMoPrefix.tryParse("!"
+                + id.toString().substring(1)));
+        try {
+            new ShardableObjectIdWithCompactMoPrefix("abc");
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            new ShardableObjectIdWithCompactMoPrefix(new byte[13]);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testRejectsNonZeroPadBits() {
+        // inc 0 ends in '-', '0' only differs in the unused low bits
+        ShardableObjectIdWithCompactMoPrefix id = new ShardableObjectIdWithCompactMoPrefix(
+                1, 2, 3, 0);
+        String s = id.toString();
+        assertEquals('-', s.charAt(18));
+        String padded = s.substring(0, 18) + "0";
+        assertEquals(id, ShardableObjectIdWithCompactMoPrefix.tryParse(s));
+        assertNull(ShardableObjectIdWithCompactMoPrefix.tryParse(padded));
+        try {
+            new ShardableObjectIdWithCompactMoPrefix(padded);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+
+        String wide = new ShardableObjectIdWithMoPrefix(new Date(0), 2, 0)
+                .toString();
+        assertEquals('-', wide.charAt(21));
+        assertNull(ShardableObjectIdWithMoPrefix.tryParse(wide.substring(0,
+                21) + "0"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPackedLengthRejectsOverflow() {
+        PackedIdArray._length(Integer.MAX_VALUE / 14 + 1, 14);
+    }
+
+    @Test
+    public void testConversion() {
+        ShardableObjectIdWithMoPrefix mo = new ShardableObjectIdWithMoPrefix(
+                new Date(1333238400000L), 42, 7);
+        ShardableObjectIdWithCompactMoPrefix compact = new ShardableObjectIdWithCompactMoPrefix(
+                mo);
+        assertEquals(201204, compact.getMonth());
+        assertEquals(507, compact.getMonthIndex());
+        assertEquals(42, compact.getMachine());
+        assertEquals(mo.getTime(), compact.getTime());
+        assertEquals(7, compact.getInc());
+        assertEquals(mo, compact.toMoPrefix());
+        assertArrayEquals(mo.toByteArray(), compact.toMoPrefixByteArray());
+
+        ShardableObjectIdWithCompactMoPrefix generated = ShardableObjectIdWithCompactMoPrefix
+                .get();
+        assertEquals(ShardableObjectIdWithMoPrefix.getGenMachineId(),
+                generated.getMachine());
+        assertTrue(generated.compareTo(ShardableObjectIdWithCompactMoPrefix
+                .get()) < 0);
+    }
+
+    @Test
+    public void testBulkConversion() {
+        ShardableObjectIdWithMoPrefixArray ids = new ShardableObjectIdWithMoPrefixArray();
+        ShardableObjectIdWithMoPrefix.generate(100, ids);
+        ids.add(new ShardableObjectIdWithMoPrefix(new Date(0), -1, -1));
+        byte[] wide = new byte[ids.size() * 16];
+        for (int i = 0; i < ids.size(); i++)
+            ids.get(i).toByteArray(wide, i * 16);
+
+        byte[] compact = ShardableObjectIdWithCompactMoPrefix
+                .fromMoPrefixBytes(wide);
+        assertEquals(ids.size() * 14, compact.length);
+        assertArrayEquals(compact,
+                ShardableObjectIdWithCompactMoPrefix.fromMoPrefixArray(ids));
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(new ShardableObjectIdWithCompactMoPrefix(ids.get(i)),
+                    new ShardableObjectIdWithCompactMoPrefix(compact, i * 14));
+        }
+
+        byte[] back = new byte[wide.length + 3];
+        ShardableObjectIdWithCompactMoPrefix.toMoPrefixBytes(compact, 0, back,
+                3, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(ids.get(i), new ShardableObjectIdWithMoPrefix(back,
+                    3 + i * 16));
+        }
+        try {
+            ShardableObjectIdWithCompactMoPrefix.toMoPrefixBytes(compact, 0,
+                    wide, 1, ids.size());
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
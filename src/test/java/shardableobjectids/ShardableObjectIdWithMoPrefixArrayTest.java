@@ -0,0 +1,100 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ShardableObjectIdWithMoPrefixArrayTest {
+
+    private List<ShardableObjectIdWithMoPrefix> randomIds(int n) {
+        Random r = new Random(7);
+        List<ShardableObjectIdWithMoPrefix> ids = new ArrayList<ShardableObjectIdWithMoPrefix>();
+        for (int i = 0; i < n; i++) {
+            long month = 201201 + r.nextInt(3);
+            ids.add(new ShardableObjectIdWithMoPrefix((month << 34)
+                    | (r.nextInt(3) - 1 & 0xFFFFFFFFL), r.nextLong()));
+        }
+        ids.addAll(ids.subList(0, n / 10));
+        Collections.shuffle(ids, r);
+        return ids;
+    }
+
+    @Test
+    public void testAddGetSet() {
+        ShardableObjectIdWithMoPrefixArray a = new ShardableObjectIdWithMoPrefixArray(
+                0);
+        List<ShardableObjectIdWithMoPrefix> ids = randomIds(100);
+        for (ShardableObjectIdWithMoPrefix id : ids) {
+            a.add(id);
+        }
+        assertEquals(ids.size(), a.size());
+        for (int i = 0; i < ids.size(); i++) {
+            ShardableObjectIdWithMoPrefix id = ids.get(i);
+            assertEquals(id, a.get(i));
+            assertEquals(id.getMonth(), a.getMonth(i));
+            assertEquals(id.getMachine(), a.getMachine(i));
+            assertEquals(id.getTimeSecond(), a.getTimeSecond(i));
+            assertEquals(id.getInc(), a.getInc(i));
+        }
+        ShardableObjectIdWithMoPrefix replacement = new ShardableObjectIdWithMoPrefix();
+        a.set(5, replacement);
+        assertEquals(replacement, a.get(5));
+    }
+
+    @Test
+    public void testSortMatchesCompareToAndBinarySearch() {
+        List<ShardableObjectIdWithMoPrefix> ids = randomIds(5000);
+        ShardableObjectIdWithMoPrefixArray a = new ShardableObjectIdWithMoPrefixArray();
+        for (ShardableObjectIdWithMoPrefix id : ids) {
+            a.add(id);
+        }
+        a.sort();
+        Collections.sort(ids);
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(ids.get(i), a.get(i));
+        }
+        for (ShardableObjectIdWithMoPrefix id : ids) {
+            int found = a.binarySearch(id);
+            assertTrue(found >= 0);
+            assertEquals(id, a.get(found));
+        }
+        assertTrue(a.binarySearch(1, 2, 3, 4) == -1);
+    }
+
+    @Test
+    public void testBulkEncodeDecode() {
+        List<ShardableObjectIdWithMoPrefix> ids = randomIds(50);
+        ShardableObjectIdWithMoPrefixArray a = new ShardableObjectIdWithMoPrefixArray();
+        for (ShardableObjectIdWithMoPrefix id : ids) {
+            a.add(id);
+        }
+        char[] encoded = new char[a.size() * 22];
+        assertEquals(a.size() * 22, a.encode(encoded, 0));
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(ids.get(i).toString(),
+                    new String(encoded, i * 22, 22));
+            assertEquals(ids.get(i).toString(), a.encodeToString(i));
+        }
+
+        ShardableObjectIdWithMoPrefixArray decoded = new ShardableObjectIdWithMoPrefixArray();
+        decoded.decode(new String(encoded), 0, a.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(ids.get(i), decoded.get(i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeRejectsOverflowingCount() {
+        // count * chars per id overflows int
+        new ShardableObjectIdWithMoPrefixArray().decode("", 0, 100000000);
+    }
+}
@@ -0,0 +1,39 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ShardableObjectIdWithMoPrefixSplitPlannerTest {
+
+    @Test
+    public void testSplitsByMonthAndMachine() {
+        Random random = new Random(9);
+        ShardableObjectIdWithMoPrefixSplitPlanner planner = new ShardableObjectIdWithMoPrefixSplitPlanner(
+                2048, random);
+        for (int i = 0; i < 50000; i++) {
+            planner.add(201201 + random.nextInt(3), random.nextInt(4),
+                    random.nextInt(), i);
+        }
+        ShardableObjectIdWithMoPrefixArray points = planner.splitPoints(4);
+        assertEquals(3, points.size());
+        // roughly one month each, the first split in the second month
+        assertTrue(points.getMonth(0) >= 201201 && points.getMonth(0) <= 201202);
+        assertTrue(points.getMonth(2) >= 201202 && points.getMonth(2) <= 201203);
+
+        byte[][] bytes = planner.splitPointBytes(4);
+        String[] strings = planner.splitPointStrings(4);
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(points.get(i).toByteArray(), bytes[i]);
+            assertEquals(points.get(i).toStringSortableBase64URLSafe(),
+                    strings[i]);
+        }
+    }
+}
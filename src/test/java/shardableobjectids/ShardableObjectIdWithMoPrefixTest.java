@@ -2,13 +2,22 @@ package shardableobjectids;
 /*
  * Copyright Georg Koester 2012. Licensed under Apache License 2.0
  */
+import org.apache.commons.codec.binary.Hex;
 import org.junit.Test;
-import sun.util.resources.CalendarData;
 
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Date;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class ShardableObjectIdWithMoPrefixTest {
@@ -40,6 +49,109 @@ public class ShardableObjectIdWithMoPrefixTest {
         }
     }
 
+    @Test
+    public void testSortableBase64MatchesGenericCodec() {
+        ShardableObjectIdWithMoPrefix soid = new ShardableObjectIdWithMoPrefix(
+                -5, 0x80000000, -1);
+        assertEquals(Base64Mod.encodeToString(soid.toByteArray()),
+                soid.toStringSortableBase64URLSafe());
+        assertEquals(soid, new ShardableObjectIdWithMoPrefix(
+                soid.toStringSortableBase64URLSafe()));
+    }
+
+    @Test
+    public void testWriteToAndAppendToMatchToString() throws Exception {
+        ShardableObjectIdWithMoPrefix soid = new ShardableObjectIdWithMoPrefix();
+        String expected = soid.toString();
+
+        char[] chars = new char[25];
+        assertEquals(22, soid.writeTo(chars, 3));
+        assertEquals(expected, new String(chars, 3, 22));
+
+        byte[] bytes = new byte[25];
+        assertEquals(22, soid.writeTo(bytes, 2));
+        assertEquals(expected, new String(bytes, 2, 22, "US-ASCII"));
+
+        assertEquals(expected, soid.appendTo(new StringBuilder()).toString());
+        StringWriter w = new StringWriter();
+        soid.appendTo((Appendable) w);
+        assertEquals(expected, w.toString());
+    }
+
+    @Test
+    public void testMongodAndBabbleMatchBytes() {
+        ShardableObjectIdWithMoPrefix soid = new ShardableObjectIdWithMoPrefix();
+        byte[] b = soid.toByteArray();
+        assertEquals(Hex.encodeHexString(b), soid.toStringMongod());
+
+        byte[] babbled = new byte[b.length];
+        for (int i = 0; i < 8; i++)
+            babbled[i] = b[7 - i];
+        for (int i = 8; i < b.length; i++)
+            babbled[i] = b[b.length - 1 - (i - 8)];
+        String babble = soid.toStringBabble();
+        assertEquals(Hex.encodeHexString(babbled), babble);
+        assertEquals(soid.toStringMongod(), ShardableObjectIdWithMoPrefix.babbleToMongod(babble));
+        assertEquals(babble, ShardableObjectIdWithMoPrefix.babbleToMongod(soid.toStringMongod()));
+        assertEquals(soid, new ShardableObjectIdWithMoPrefix(babble, true));
+        assertEquals(soid, new ShardableObjectIdWithMoPrefix(soid.toStringMongod()
+                .toUpperCase()));
+    }
+
+    @Test
+    public void testTryParse() {
+        ShardableObjectIdWithMoPrefix soid = new ShardableObjectIdWithMoPrefix();
+        String base64 = soid.toString();
+        String mongod = soid.toStringMongod();
+        assertEquals(soid, ShardableObjectIdWithMoPrefix.tryParse(base64));
+        assertEquals(soid, ShardableObjectIdWithMoPrefix.tryParse(mongod));
+        assertEquals(soid, ShardableObjectIdWithMoPrefix.tryParse("x" + base64 + "x", 1,
+                22));
+        assertEquals(soid, ShardableObjectIdWithMoPrefix.tryParse(mongod.toUpperCase()));
+
+        assertNull(ShardableObjectIdWithMoPrefix.tryParse(null));
+        assertNull(ShardableObjectIdWithMoPrefix.tryParse(""));
+        assertNull(ShardableObjectIdWithMoPrefix.tryParse(base64.substring(1)));
+        assertNull(ShardableObjectIdWithMoPrefix.tryParse(" " + base64.substring(1)));
+        assertNull(ShardableObjectIdWithMoPrefix.tryParse(base64.substring(1) + "!"));
+        assertNull(ShardableObjectIdWithMoPrefix.tryParse(mongod.substring(1) + "g"));
+        assertNull(ShardableObjectIdWithMoPrefix.tryParse(base64, 1, 22));
+    }
+
+    @Test
+    public void testOffsetByteArrayRoundTrip() {
+        ShardableObjectIdWithMoPrefix first = new ShardableObjectIdWithMoPrefix();
+        ShardableObjectIdWithMoPrefix second = new ShardableObjectIdWithMoPrefix();
+        byte[] page = new byte[1 + 2 * 16];
+        first.toByteArray(page, 1);
+        second.toByteArray(page, 1 + 16);
+        assertArrayEquals(first.toByteArray(),
+                Arrays.copyOfRange(page, 1, 1 + 16));
+        assertEquals(first, new ShardableObjectIdWithMoPrefix(page, 1));
+        assertEquals(second, new ShardableObjectIdWithMoPrefix(page, 1 + 16));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffsetByteArrayChecksBounds() {
+        new ShardableObjectIdWithMoPrefix(new byte[16], 1);
+    }
+
+    @Test
+    public void testByteBufferRoundTrip() {
+        ShardableObjectIdWithMoPrefix soid = new ShardableObjectIdWithMoPrefix();
+        ByteBuffer direct = ByteBuffer.allocateDirect(16);
+        soid.writeTo(direct);
+        direct.flip();
+        assertEquals(soid, new ShardableObjectIdWithMoPrefix(direct));
+
+        ByteBuffer little = ByteBuffer.allocate(16).order(
+                ByteOrder.LITTLE_ENDIAN);
+        soid.writeTo(little);
+        assertArrayEquals(soid.toByteArray(), little.array());
+        little.flip();
+        assertEquals(soid, new ShardableObjectIdWithMoPrefix(little));
+    }
+
     @Test
     public void testSortingWorksWithBase64Strings() {
         Calendar c = Calendar.getInstance();
@@ -58,4 +170,92 @@ public class ShardableObjectIdWithMoPrefixTest {
         assertTrue(0 < first.getTime() - second.getTime());
         assertTrue(0 < first.toStringBase64URLSafe().compareTo(second.toStringBase64URLSafe()));
     }
+
+    @Test
+    public void testGenerateBatch() {
+        ShardableObjectIdWithMoPrefixArray ids = ShardableObjectIdWithMoPrefix
+                .generate(100, new ShardableObjectIdWithMoPrefixArray());
+        assertEquals(100, ids.size());
+        ShardableObjectIdWithMoPrefix first = ids.get(0);
+        for (int i = 1; i < ids.size(); i++) {
+            assertEquals(first.getMonth(), ids.getMonth(i));
+            assertEquals(first.getMachine(), ids.getMachine(i));
+            assertEquals(first.getTimeSecond(), ids.getTimeSecond(i));
+            assertEquals(first.getInc() + i, ids.getInc(i));
+            assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0);
+        }
+        assertEquals(new ShardableObjectIdWithMoPrefix().getMonth(),
+                first.getMonth());
+    }
+
+    @Test
+    public void testGenerateBatchIntoByteBuffer() {
+        ByteBuffer bb = ByteBuffer.allocateDirect(32);
+        ShardableObjectIdWithMoPrefix.generate(2, bb);
+        bb.flip();
+        ShardableObjectIdWithMoPrefix first = new ShardableObjectIdWithMoPrefix(bb);
+        ShardableObjectIdWithMoPrefix second = new ShardableObjectIdWithMoPrefix(bb);
+        assertEquals(first.getInc() + 1, second.getInc());
+        assertEquals(new ShardableObjectIdWithMoPrefix().getMonth(),
+                first.getMonth());
+
+        ByteBuffer little = ByteBuffer.allocate(16).order(
+                ByteOrder.LITTLE_ENDIAN);
+        ShardableObjectIdWithMoPrefix.generate(1, little);
+        little.flip();
+        assertEquals(first.getMonth(),
+                new ShardableObjectIdWithMoPrefix(little).getMonth());
+    }
+
+    @Test
+    public void testMonthZone() {
+        Date newYearUtc = new Date(1325376000000L); // 2012-01-01T00:00Z
+        Date beforeNewYearUtc = new Date(newYearUtc.getTime() - 1000);
+        assertEquals(ZoneOffset.UTC, ShardableObjectIdWithMoPrefix.getMonthZone());
+        assertEquals(201201, new ShardableObjectIdWithMoPrefix(newYearUtc).getMonth());
+        assertEquals(201112, new ShardableObjectIdWithMoPrefix(beforeNewYearUtc).getMonth());
+        assertEquals(201112, new ShardableObjectIdWithMoPrefix(
+                (int) (beforeNewYearUtc.getTime() / 1000), 1, 2).getMonth());
+        try {
+            ShardableObjectIdWithMoPrefix.setMonthZone(ZoneId.of("Europe/Berlin"));
+            assertEquals(201201, new ShardableObjectIdWithMoPrefix(beforeNewYearUtc).getMonth());
+        } finally {
+            ShardableObjectIdWithMoPrefix.setMonthZone(ZoneOffset.UTC);
+        }
+    }
+
+    @Test
+    public void testInjectedClock() {
+        IdClock original = ShardableObjectIdWithMoPrefix.getClock();
+        try {
+            ShardableObjectIdWithMoPrefix.setClock(IdClocks.fixed(1325376000999L));
+            ShardableObjectIdWithMoPrefix id = new ShardableObjectIdWithMoPrefix();
+            assertEquals(1325376000, id.getTimeSecond());
+            assertEquals(201201, id.getMonth());
+            assertEquals(1325376000, ShardableObjectIdWithMoPrefix.generate(1,
+                    new ShardableObjectIdWithMoPrefixArray()).getTimeSecond(0));
+        } finally {
+            ShardableObjectIdWithMoPrefix.setClock(original);
+        }
+    }
+
+    @Test
+    public void testPrefixSpread() {
+        MachineIdProvider original = MachineIdProviders.getProvider();
+        MachineIdProviders.setProvider(MachineIdProviders.explicit(5));
+        try {
+            ShardableObjectIdWithMoPrefix.setPrefixSpreadBits(1);
+            ShardableObjectIdWithMoPrefix a = new ShardableObjectIdWithMoPrefix();
+            ShardableObjectIdWithMoPrefix b = new ShardableObjectIdWithMoPrefix();
+            assertEquals(a.getMachine() + 0x80000000, b.getMachine());
+            assertEquals(a.getMonth(), b.getMonth());
+            assertEquals(b, new ShardableObjectIdWithMoPrefix(b.toString()));
+            assertEquals(5, a.getMachine() & 0x7fffffff);
+            assertEquals(5, new ShardableObjectIdWithMoPrefix(new Date(0), 1)
+                    .getMachine());
+        } finally {
+            ShardableObjectIdWithMoPrefix.setPrefixSpreadBits(0);
+            MachineIdProviders.setProvider(original);
+        }
+    }
 }
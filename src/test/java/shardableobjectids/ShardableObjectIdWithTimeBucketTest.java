@@ -0,0 +1,108 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+public class ShardableObjectIdWithTimeBucketTest {
+
+    @Test
+    public void testGenerate() {
+        TimeBucket days = TimeBuckets.days();
+        IdClock clock = ShardableObjectIdWithTimeBucket.getClock();
+        ShardableObjectIdWithTimeBucket.setClock(IdClocks
+                .fixed(15400L * 86400 * 1000 + 1234));
+        try {
+            ShardableObjectIdWithTimeBucket a = ShardableObjectIdWithTimeBucket
+                    .get(days);
+            ShardableObjectIdWithTimeBucket b = ShardableObjectIdWithTimeBucket
+                    .get(days);
+            assertEquals(15400, a.getBucket());
+            assertEquals(15400 * 86400 + 1, a.getTimeSecond());
+            assertEquals(ShardableObjectId.getGenMachineId(), a.getMachine());
+            assertEquals(a.getInc() + 1, b.getInc());
+            assertTrue(a.compareTo(b) < 0);
+        } finally {
+            ShardableObjectIdWithTimeBucket.setClock(clock);
+        }
+
+        ShardableObjectIdWithTimeBucket c = new ShardableObjectIdWithTimeBucket(
+                TimeBuckets.hours(), new Date(7200 * 1000L + 5));
+        assertEquals(2, c.getBucket());
+        assertEquals(7200 * 1000L, c.getTime());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        ShardableObjectIdWithTimeBucket id = new ShardableObjectIdWithTimeBucket(
+                0x8100_0001, 0x12345678, 0xCAFEBABE, -1);
+        assertEquals(id, new ShardableObjectIdWithTimeBucket(id.toString()));
+        assertEquals(id,
+                new ShardableObjectIdWithTimeBucket(id.toStringMongod()));
+        assertEquals("8100000112345678cafebabeffffffff", id.toStringMongod());
+        assertEquals(id, new ShardableObjectIdWithTimeBucket(id.toByteArray()));
+        byte[] bytes = id.toByteArray(new byte[20], 3);
+        assertEquals(id, new ShardableObjectIdWithTimeBucket(bytes, 3));
+        assertEquals(id.hashCode(), new ShardableObjectIdWithTimeBucket(
+                id.toByteArray()).hashCode());
+
+        char[] chars = new char[24];
+        assertEquals(22, id.writeTo(chars, 2));
+        assertEquals(id.toString(), new String(chars, 2, 22));
+        assertEquals(id, ShardableObjectIdWithTimeBucket.tryParse(
+                "xx" + id.toString(), 2, 22));
+        assertEquals(id.toString(), id.appendTo(new StringBuilder())
+                .toString());
+
+        assertNull(ShardableObjectIdWithTimeBucket.tryParse("abc"));
+        assertNull(ShardableObjectIdWithTimeBucket.tryParse(id.toString()
+                .replace(id.toString().charAt(3), '!')));
+        try {
+            new ShardableObjectIdWithTimeBucket("abc");
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            new ShardableObjectIdWithTimeBucket(new byte[15]);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testOrderingAndBounds() {
+        ShardableObjectIdWithTimeBucket[] ids = {
+                new ShardableObjectIdWithTimeBucket(1, -1, -1, -1),
+                new ShardableObjectIdWithTimeBucket(2, 0, 0, 0),
+                new ShardableObjectIdWithTimeBucket(2, 5, 1, 7),
+                new ShardableObjectIdWithTimeBucket(2, -1, 0, 0),
+                new ShardableObjectIdWithTimeBucket(-2, 0, 0, 0) };
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i - 1].compareTo(ids[i]) < 0);
+            assertTrue(ids[i - 1].toString().compareTo(ids[i].toString()) < 0);
+            assertTrue(IdComparators.compare128(ids[i - 1].toByteArray(), 0,
+                    ids[i].toByteArray(), 0) < 0);
+        }
+        ShardableObjectIdWithTimeBucket lower = ShardableObjectIdWithTimeBucket
+                .lowerBound(2);
+        ShardableObjectIdWithTimeBucket upper = ShardableObjectIdWithTimeBucket
+                .upperBound(2);
+        assertTrue(lower.compareTo(ids[0]) > 0);
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(lower.compareTo(ids[i]) <= 0);
+            assertTrue(upper.compareTo(ids[i]) >= 0);
+        }
+        assertTrue(upper.compareTo(ids[4]) < 0);
+        assertArrayEquals(new byte[] { 0, 0, 0, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                0, 0, 0 }, lower.toByteArray());
+    }
+}
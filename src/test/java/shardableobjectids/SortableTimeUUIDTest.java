@@ -0,0 +1,70 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class SortableTimeUUIDTest {
+
+    @Test
+    public void testConversions() {
+        UUID uuid = TimeUUID.get();
+        SortableTimeUUID sortable = SortableTimeUUID.fromUUID(uuid);
+        assertEquals(uuid, sortable.toUUID());
+        assertEquals(uuid.timestamp(), sortable.timestamp());
+        assertEquals(uuid.getMostSignificantBits(),
+                sortable.getMostSignificantBits());
+
+        String base64 = TimeUUIDUtils.toSortableUrlSafeBase64(uuid);
+        assertEquals(base64, sortable.toString());
+        assertEquals(sortable,
+                SortableTimeUUID.fromSortableUrlSafeBase64(base64));
+        char[] chars = new char[24];
+        assertEquals(22, sortable.writeTo(chars, 2));
+        assertEquals(base64, new String(chars, 2, 22));
+
+        byte[] bytes = TimeUUIDUtils.toSortableBytes(uuid);
+        assertArrayEquals(bytes, sortable.toSortableBytes());
+        assertEquals(sortable, SortableTimeUUID.fromSortableBytes(bytes, 0));
+        assertEquals(sortable.hashCode(),
+                SortableTimeUUID.fromSortableBytes(bytes, 0).hashCode());
+    }
+
+    @Test
+    public void testOrderMatchesSortableForms() {
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            UUID x = new UUID(TimeUUIDUtils.createTime(random.nextLong() >>> 8),
+                    random.nextLong());
+            UUID y = new UUID(i % 2 == 0 ? x.getMostSignificantBits()
+                    : TimeUUIDUtils.createTime(random.nextLong() >>> 8),
+                    random.nextLong());
+            int expected = Integer.signum(IdComparators.compare128(
+                    TimeUUIDUtils.toSortableBytes(x), 0,
+                    TimeUUIDUtils.toSortableBytes(y), 0));
+            SortableTimeUUID sx = SortableTimeUUID.fromUUID(x);
+            SortableTimeUUID sy = SortableTimeUUID.fromUUID(y);
+            assertEquals(expected, Integer.signum(sx.compareTo(sy)));
+            assertEquals(expected, Integer.signum(sx.toString().compareTo(
+                    sy.toString())));
+        }
+    }
+
+    @Test
+    public void testGetIsIncreasing() {
+        SortableTimeUUID previous = SortableTimeUUID.get();
+        for (int i = 0; i < 1000; i++) {
+            SortableTimeUUID next = SortableTimeUUID.get();
+            assertTrue(previous.compareTo(next) < 0);
+            previous = next;
+        }
+    }
+}
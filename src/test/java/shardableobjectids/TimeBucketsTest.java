@@ -0,0 +1,81 @@
+package shardableobjectids;
+
+/*
+ * Copyright Georg Koester 2012. Licensed under Apache License 2.0
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.time.DayOfWeek;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.IsoFields;
+
+import org.junit.Test;
+
+public class TimeBucketsTest {
+
+    @Test
+    public void testFixed() {
+        TimeBucket hours = TimeBuckets.hours();
+        assertEquals(0, hours.bucketOf(0));
+        assertEquals(0, hours.bucketOf(3599));
+        assertEquals(1, hours.bucketOf(3600));
+        assertEquals(3600, hours.startSecond(1));
+        assertEquals(7200, hours.endSecond(1));
+        assertEquals(15400, TimeBuckets.days().bucketOf(15400L * 86400 + 5));
+
+        TimeBucket custom = TimeBuckets.fixed(10, 100);
+        assertEquals(0, custom.bucketOf(100));
+        assertEquals(2, custom.bucketOf(125));
+        assertEquals(120, custom.startSecond(2));
+        try {
+            custom.bucketOf(99);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            TimeBuckets.fixed(0, 0);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testIsoWeeks() {
+        TimeBucket weeks = TimeBuckets.isoWeeks();
+        ZonedDateTime t = ZonedDateTime.parse("2012-03-07T12:00:00Z");
+        for (int i = 0; i < 200; i++, t = t.plusHours(13)) {
+            int bucket = weeks.bucketOf(t.toEpochSecond());
+            ZonedDateTime start = ZonedDateTime.ofInstant(
+                    java.time.Instant.ofEpochSecond(weeks.startSecond(bucket)),
+                    ZoneOffset.UTC);
+            assertEquals(DayOfWeek.MONDAY, start.getDayOfWeek());
+            assertEquals(t.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR),
+                    start.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            assertEquals(weeks.startSecond(bucket) + 7 * 86400,
+                    weeks.endSecond(bucket));
+        }
+    }
+
+    @Test
+    public void testMonths() {
+        TimeBucket months = TimeBuckets.months();
+        long mar2012 = ZonedDateTime.parse("2012-03-01T00:00:00Z")
+                .toEpochSecond();
+        assertEquals(201202, months.bucketOf(mar2012 - 1));
+        assertEquals(201203, months.bucketOf(mar2012));
+        assertEquals(mar2012, months.startSecond(201203));
+        assertEquals(mar2012, months.endSecond(201202));
+
+        TimeBucket berlin = TimeBuckets.months(ZoneId.of("Europe/Berlin"));
+        assertEquals(201203, berlin.bucketOf(mar2012 - 1));
+        assertEquals(mar2012 - 3600, berlin.startSecond(201203));
+        try {
+            months.startSecond(201213);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package shardableobjectids;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 
 import org.junit.After;
@@ -28,6 +34,25 @@ public class TimeUUIDTest {
 
     }
 
+    @Test
+    public void shouldTryParseAllForms() {
+        UUID uuid = TimeUUID.get();
+        String dashed = uuid.toString();
+        String hex = dashed.replace("-", "");
+        String base64 = TimeUUIDUtils.toSortableUrlSafeBase64(uuid);
+        assertEquals(uuid, TimeUUID.tryParse(dashed));
+        assertEquals(uuid, TimeUUID.tryParse(hex));
+        assertEquals(uuid, TimeUUID.tryParse(hex.toUpperCase()));
+        assertEquals(uuid, TimeUUID.tryParse(base64));
+        assertEquals(uuid, TimeUUID.tryParse("[" + base64 + "]", 1, 22));
+
+        assertNull(TimeUUID.tryParse(null));
+        assertNull(TimeUUID.tryParse(dashed.replace('-', '0')));
+        assertNull(TimeUUID.tryParse(hex.substring(1) + "z"));
+        assertNull(TimeUUID.tryParse(base64.substring(1) + "!"));
+        assertNull(TimeUUID.tryParse(base64, 2, 22));
+    }
+
     @Test
     public void shouldParseHexUuid() {
         UUID uuid = TimeUUID.get();
@@ -36,4 +61,114 @@ public class TimeUUIDTest {
         assertEquals(uuid, parse);
     }
 
+    @Test
+    public void shouldGenerateStrictlyIncreasingTimes() throws Exception {
+        final long[][] stamps = new long[4][20000];
+        Thread[] threads = new Thread[stamps.length];
+        for (int t = 0; t < threads.length; t++) {
+            final long[] mine = stamps[t];
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < mine.length; i++) {
+                        mine[i] = TimeUUID.get().timestamp();
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Set<Long> all = new HashSet<Long>();
+        for (long[] mine : stamps) {
+            for (int i = 0; i < mine.length; i++) {
+                if (i > 0)
+                    assertTrue(mine[i - 1] < mine[i]);
+                all.add(mine[i]);
+            }
+        }
+        assertEquals(80000, all.size());
+    }
+
+    @Test
+    public void shouldGenerateCurrentTime() {
+        long before = System.currentTimeMillis();
+        UUID uuid = TimeUUID.get();
+        long after = System.currentTimeMillis();
+        assertEquals(1, uuid.version());
+        assertEquals(2, uuid.variant());
+        long time = TimeUUIDUtils.extractJavaTime(uuid);
+        // nanoTime anchoring may differ slightly from currentTimeMillis
+        assertTrue(time >= before - 20 && time <= after + 20);
+        assertEquals(TimeUUIDUtils.createTime(TimeUUIDUtils
+                .extractTenthOfMicrosTime(uuid)), uuid
+                .getMostSignificantBits());
+    }
+
+    @Test
+    public void shouldParseHexForms() {
+        UUID uuid = UUID.fromString("2a42be00-26b5-11e3-8d2b-005056c00008");
+        assertEquals(uuid, TimeUUID.parse("2a42be00-26b5-11e3-8d2b-005056c00008"));
+        assertEquals(uuid, TimeUUID.parse("2a42be0026b511e38d2b005056c00008"));
+        assertEquals(uuid, TimeUUID.parse("x2A42BE00-26B5-11E3-8D2B-005056C00008y", 1, 36));
+        for (int i = 0; i < 100; i++) {
+            UUID random = UUID.randomUUID();
+            assertEquals(random, TimeUUID.parse(random.toString()));
+            assertEquals(random, TimeUUID.parse(random.toString().replace("-", "")));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMisplacedDash() {
+        TimeUUID.parse("2a42be00-26b5-11e38-d2b-005056c00008");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonHex() {
+        TimeUUID.parse("2a42be0026b511e38d2b005056c0000g");
+    }
+
+    @Test
+    public void shouldReportOnlyTheBadToken() {
+        StringBuilder buffer = new StringBuilder("prefix-");
+        buffer.append("2a42be0026b511e38d2b005056c0000g");
+        for (int i = 0; i < 1000; i++)
+            buffer.append(" trailing buffer content");
+        try {
+            TimeUUID.parse(buffer, 7, 32);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("String not in expected format "
+                    + "[2a42be0026b511e38d2b005056c0000g] at offset 7, "
+                    + "length 32", e.getMessage());
+        }
+        try {
+            TimeUUID.parse(buffer, 0, 200);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().length() < 150);
+        }
+        try {
+            TimeUUID.parse(buffer, buffer.length() - 10, 36);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid range at offset " + (buffer.length() - 10)
+                    + ", length 36", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldFormatLikeToString() throws Exception {
+        char[] chars = new char[40];
+        for (int i = 0; i < 100; i++) {
+            UUID uuid = i == 0 ? TimeUUID.get() : UUID.randomUUID();
+            assertEquals(36, TimeUUID.format(uuid, chars, 3));
+            assertEquals(uuid.toString(), new String(chars, 3, 36));
+            assertEquals(uuid.toString(), TimeUUID.format(uuid,
+                    new StringBuilder()).toString());
+            assertEquals(uuid.toString(), TimeUUID.format(uuid,
+                    (Appendable) new StringWriter()).toString());
+        }
+    }
 }
@@ -3,6 +3,7 @@ package shardableobjectids;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import java.io.StringWriter;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.text.DateFormat;
@@ -48,6 +49,40 @@ public class TimeUUIDUtilsTest {
         assertEquals(uuid, uuid2);
     }
 
+    @Test
+    public void shouldEncodeSortableBase64LikeGenericCodec() {
+        UUID uuid = new UUID(2196272690428776931L, -5474406476992741368L);
+        String encoded = TimeUUIDUtils.toSortableUrlSafeBase64(uuid);
+        assertEquals(
+                Base64Mod.encodeToString(TimeUUIDUtils.toSortableBytes(uuid)),
+                encoded);
+        assertEquals(uuid, TimeUUIDUtils.fromSortableUrlSafeBase64(encoded));
+        assertEquals(uuid, TimeUUIDUtils.fromSortableUrlSafeBase64(
+                Base64Mod.encode(TimeUUIDUtils.toSortableBytes(uuid)), 0));
+    }
+
+    @Test
+    public void shouldWriteAndAppendSortableBase64() throws Exception {
+        UUID uuid = TimeUUID.get();
+        String expected = TimeUUIDUtils.toSortableUrlSafeBase64(uuid);
+
+        char[] chars = new char[23];
+        assertEquals(22,
+                TimeUUIDUtils.writeSortableUrlSafeBase64(uuid, chars, 1));
+        assertEquals(expected, new String(chars, 1, 22));
+
+        byte[] bytes = new byte[22];
+        assertEquals(22,
+                TimeUUIDUtils.writeSortableUrlSafeBase64(uuid, bytes, 0));
+        assertEquals(uuid, TimeUUIDUtils.fromSortableUrlSafeBase64(bytes, 0));
+
+        assertEquals(expected, TimeUUIDUtils.appendSortableUrlSafeBase64(uuid,
+                new StringBuilder()).toString());
+        StringWriter w = new StringWriter();
+        TimeUUIDUtils.appendSortableUrlSafeBase64(uuid, (Appendable) w);
+        assertEquals(expected, w.toString());
+    }
+
     @Test
     public void shouldCompareTimeUUID() {
         UUID uuid = new UUID(2196272690428776931L, -5474406476992741368L);
@@ -251,4 +286,41 @@ public class TimeUUIDUtilsTest {
         byte[] ba = TimeUUIDUtils.toSortableBytes(objectId);
         return Base64Mod.encodeToString(ba);
     }
+
+    @Test
+    public void shouldEncodeLongPairsDirectly() {
+        Random random = new Random(3);
+        char[] chars = new char[25];
+        byte[] bytes = new byte[24];
+        for (int i = 0; i < 100; i++) {
+            UUID uuid = new UUID(TimeUUIDUtils.createTime(random.nextLong() >>> 8),
+                    random.nextLong());
+            long msb = uuid.getMostSignificantBits();
+            long lsb = uuid.getLeastSignificantBits();
+            String expected = TimeUUIDUtils.toSortableUrlSafeBase64(uuid);
+            assertEquals(expected, TimeUUIDUtils.toSortableUrlSafeBase64(msb, lsb));
+            assertEquals(22, TimeUUIDUtils.writeSortableUrlSafeBase64(msb, lsb, chars, 3));
+            assertEquals(expected, new String(chars, 3, 22));
+            assertEquals(22, TimeUUIDUtils.writeSortableUrlSafeBase64(msb, lsb, bytes, 2));
+            assertEquals(msb, TimeUUIDUtils.sortableUrlSafeBase64Msb(expected, 0));
+            assertEquals(lsb, TimeUUIDUtils.sortableUrlSafeBase64Lsb(expected, 0));
+            assertEquals(msb, TimeUUIDUtils.sortableUrlSafeBase64Msb(bytes, 2));
+            assertEquals(lsb, TimeUUIDUtils.sortableUrlSafeBase64Lsb(bytes, 2));
+
+            byte[] sortable = TimeUUIDUtils.toSortableBytes(uuid, new byte[20], 4);
+            assertEquals(uuid, TimeUUIDUtils.sortableBytesToUuid(sortable, 4));
+        }
+    }
+
+    @Test
+    public void shouldWriteNewTimeUUIDs() {
+        char[] chars = new char[22];
+        assertEquals(22, TimeUUID.writeNewAsSortableUrlSafeBase64(chars, 0));
+        UUID first = TimeUUIDUtils.fromSortableUrlSafeBase64(new String(chars));
+        byte[] bytes = new byte[22];
+        assertEquals(22, TimeUUID.writeNewAsSortableUrlSafeBase64(bytes, 0));
+        UUID second = TimeUUIDUtils.fromSortableUrlSafeBase64(bytes, 0);
+        assertEquals(1, first.version());
+        assertEquals(-1, TimeUUIDUtils.compare(first, second));
+    }
 }